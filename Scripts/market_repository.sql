@@ -107,3 +107,211 @@ CREATE TABLE IF NOT EXISTS important_statistic
     items_counter         BIGINT NOT NULL
 );
 
+
+CREATE INDEX IF NOT EXISTS items_model_item_id_idx ON items (model, item_id);
+CREATE INDEX IF NOT EXISTS item_sales_information_price_id_idx ON item_sales_information (price, id);
+
+CREATE TABLE IF NOT EXISTS stock_reservation
+(
+    id         BIGSERIAL PRIMARY KEY,
+    item_id    BIGINT      NOT NULL REFERENCES items (item_id) ON DELETE CASCADE,
+    user_id    BIGINT      NOT NULL REFERENCES personal_account (id) ON DELETE CASCADE,
+    quantity   INT         NOT NULL CHECK (quantity > 0),
+    expires_at TIMESTAMPTZ NOT NULL,
+    node_id    VARCHAR(128) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS stock_reservation_expires_at_idx ON stock_reservation (expires_at);
+CREATE INDEX IF NOT EXISTS stock_reservation_item_id_idx ON stock_reservation (item_id);
+
+-- Active holds of a phone by its item_sales_information row, for the guarded quantity UPDATE of stock.mode = column.
+-- VOLATILE, so it reads with a fresh snapshot when that UPDATE re-checks a row it had to wait for: a hold committed
+-- by the transaction holding the row lock is counted
+CREATE OR REPLACE FUNCTION active_holds(sales_information_id BIGINT) RETURNS BIGINT AS
+$$
+BEGIN
+    RETURN (SELECT coalesce(sum(r.quantity), 0)
+            FROM market.stock_reservation r
+                     JOIN market.items i ON i.item_id = r.item_id
+            WHERE i.item_sales_information_id = sales_information_id
+              AND r.expires_at > now());
+END
+$$ LANGUAGE plpgsql VOLATILE;
+
+CREATE TABLE IF NOT EXISTS stock_movements
+(
+    id            BIGSERIAL PRIMARY KEY,
+    item_id       BIGINT      NOT NULL REFERENCES items (item_id) ON DELETE CASCADE,
+    movement_type VARCHAR(16) NOT NULL,
+    quantity      INT         NOT NULL,
+    created_at    TIMESTAMPTZ NOT NULL,
+    created_xid   XID8        NOT NULL DEFAULT pg_current_xact_id()
+);
+CREATE INDEX IF NOT EXISTS stock_movements_item_id_id_idx ON stock_movements (item_id, id);
+CREATE INDEX IF NOT EXISTS stock_movements_item_id_xid_idx ON stock_movements (item_id, created_xid);
+CREATE INDEX IF NOT EXISTS stock_movements_xid_idx ON stock_movements (created_xid);
+
+-- The snapshot holds every movement of the transactions below rolled_up_xid, all of which had ended when it was
+-- taken; the balance is the snapshot plus the movements from rolled_up_xid on
+CREATE TABLE IF NOT EXISTS stock_snapshot
+(
+    item_id       BIGINT PRIMARY KEY REFERENCES items (item_id) ON DELETE CASCADE,
+    quantity      BIGINT      NOT NULL,
+    rolled_up_xid XID8        NOT NULL,
+    taken_at      TIMESTAMPTZ NOT NULL
+);
+
+-- Sales are appended without a lock when the balance less the active holds covers them; this deferred check
+-- re-reads both at commit under the per-item lock of StockMovementDao.ITEM_LOCK_CLASS, which new holds take
+-- as well, so two sales that both saw the same last unit cannot both commit
+CREATE OR REPLACE FUNCTION check_stock_balance() RETURNS TRIGGER AS
+$$
+DECLARE
+    balance BIGINT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(7301, hashint8(NEW.item_id));
+    SELECT coalesce(s.quantity, isi.quantity)
+               + coalesce((SELECT sum(m.quantity)
+                           FROM market.stock_movements m
+                           WHERE m.item_id = i.item_id
+                             AND m.created_xid >= coalesce(s.rolled_up_xid, '0'::xid8)), 0)
+    INTO balance
+    FROM market.items i
+             JOIN market.item_sales_information isi ON isi.id = i.item_sales_information_id
+             LEFT JOIN market.stock_snapshot s ON s.item_id = i.item_id
+    WHERE i.item_id = NEW.item_id;
+    SELECT balance - coalesce(sum(r.quantity), 0)
+    INTO balance
+    FROM market.stock_reservation r
+    WHERE r.item_id = NEW.item_id
+      AND r.expires_at > now();
+    IF balance < 0 THEN
+        RAISE EXCEPTION 'Not enough stock for item %', NEW.item_id USING ERRCODE = 'check_violation';
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS stock_movements_balance_check ON stock_movements;
+CREATE CONSTRAINT TRIGGER stock_movements_balance_check
+    AFTER INSERT
+    ON stock_movements
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW
+    WHEN (NEW.movement_type = 'SALE')
+EXECUTE FUNCTION check_stock_balance();
+
+-- Hibernate takes ids in blocks of 50 (pooled-lo), so every sequence it uses steps by 50;
+-- the column defaults keep working for plain SQL inserts
+ALTER SEQUENCE items_item_id_seq INCREMENT BY 50;
+ALTER SEQUENCE item_sales_information_id_seq INCREMENT BY 50;
+ALTER SEQUENCE personal_account_id_seq INCREMENT BY 50;
+ALTER SEQUENCE sell_history_sell_id_seq INCREMENT BY 50;
+ALTER SEQUENCE stock_reservation_id_seq INCREMENT BY 50;
+SELECT setval('items_item_id_seq', (SELECT coalesce(max(item_id), 0) + 50 FROM items));
+SELECT setval('item_sales_information_id_seq', (SELECT coalesce(max(id), 0) + 50 FROM item_sales_information));
+SELECT setval('personal_account_id_seq', (SELECT coalesce(max(id), 0) + 50 FROM personal_account));
+SELECT setval('sell_history_sell_id_seq', (SELECT coalesce(max(sell_id), 0) + 50 FROM sell_history));
+SELECT setval('stock_reservation_id_seq', (SELECT coalesce(max(id), 0) + 50 FROM stock_reservation));
+
+CREATE INDEX IF NOT EXISTS sell_history_sell_date_idx ON sell_history (sell_date);
+
+-- Hourly and daily sales per phone and currency, maintained by SalesRollupRoller
+CREATE TABLE IF NOT EXISTS sales_rollup
+(
+    granularity  VARCHAR(8)     NOT NULL,
+    bucket_start TIMESTAMPTZ    NOT NULL,
+    item_id      BIGINT         NOT NULL,
+    currency     VARCHAR(1)     NOT NULL,
+    brand        VARCHAR(32),
+    units        BIGINT         NOT NULL,
+    revenue      NUMERIC(18, 2) NOT NULL,
+    order_count  BIGINT         NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, item_id, currency)
+);
+
+-- The rollups hold every sale of the transactions below rolled_up_xid, whatever its sell_date; a sale that
+-- commits long after its sell_date is still rolled up by the next run that sees its transaction ended
+CREATE TABLE IF NOT EXISTS sales_rollup_watermark
+(
+    id            BIGINT PRIMARY KEY,
+    rolled_up_xid XID8 NOT NULL
+);
+
+ALTER TABLE sell_history ADD COLUMN IF NOT EXISTS created_xid XID8 NOT NULL DEFAULT pg_current_xact_id();
+CREATE INDEX IF NOT EXISTS sell_history_created_xid_idx ON sell_history (created_xid);
+
+-- Latest change per phone for the delta sync endpoint, written by triggers so that plain SQL writes are caught too.
+-- Readers only take rows of transactions older than their snapshot's xmin, which can no longer change
+CREATE SEQUENCE IF NOT EXISTS catalog_change_seq;
+
+CREATE TABLE IF NOT EXISTS catalog_changes
+(
+    item_id    BIGINT PRIMARY KEY,
+    change_xid XID8    NOT NULL,
+    change_id  BIGINT  NOT NULL,
+    deleted    BOOLEAN NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS catalog_changes_token_idx ON catalog_changes (change_xid, change_id);
+
+CREATE OR REPLACE FUNCTION record_catalog_change() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_TABLE_NAME = 'items' THEN
+        INSERT INTO market.catalog_changes (item_id, change_xid, change_id, deleted)
+        VALUES (CASE WHEN TG_OP = 'DELETE' THEN OLD.item_id ELSE NEW.item_id END, pg_current_xact_id(),
+                nextval('market.catalog_change_seq'), TG_OP = 'DELETE')
+        ON CONFLICT (item_id) DO UPDATE SET change_xid = excluded.change_xid,
+                                            change_id  = excluded.change_id,
+                                            deleted    = excluded.deleted;
+    ELSE
+        INSERT INTO market.catalog_changes (item_id, change_xid, change_id, deleted)
+        SELECT i.item_id, pg_current_xact_id(), nextval('market.catalog_change_seq'), FALSE
+        FROM market.items i
+        WHERE i.item_sales_information_id = NEW.id
+        ON CONFLICT (item_id) DO UPDATE SET change_xid = excluded.change_xid,
+                                            change_id  = excluded.change_id,
+                                            deleted    = excluded.deleted;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER items_catalog_change
+    AFTER INSERT OR UPDATE OR DELETE
+    ON items
+    FOR EACH ROW
+EXECUTE FUNCTION record_catalog_change();
+
+-- stock snapshots only move the quantity, which is not part of the synced catalog
+CREATE OR REPLACE TRIGGER item_sales_information_catalog_change
+    AFTER UPDATE
+    ON item_sales_information
+    FOR EACH ROW
+    WHEN (OLD.price IS DISTINCT FROM NEW.price OR OLD.currency IS DISTINCT FROM NEW.currency)
+EXECUTE FUNCTION record_catalog_change();
+
+INSERT INTO catalog_changes (item_id, change_xid, change_id, deleted)
+SELECT item_id, pg_current_xact_id(), nextval('catalog_change_seq'), FALSE
+FROM items
+ON CONFLICT (item_id) DO NOTHING;
+
+-- Confirmation emails waiting to be sent. The row is written in the registering transaction, so an email is never
+-- lost with a committed account; FAILED rows keep the last error of addresses that never got one
+CREATE TABLE IF NOT EXISTS email_outbox
+(
+    id              BIGSERIAL PRIMARY KEY,
+    recipient       VARCHAR(255) NOT NULL,
+    link            TEXT         NOT NULL,
+    status          VARCHAR(16)  NOT NULL,
+    attempts        INT          NOT NULL,
+    next_attempt_at TIMESTAMPTZ  NOT NULL,
+    last_error      TEXT,
+    created_at      TIMESTAMPTZ  NOT NULL,
+    sent_at         TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS email_outbox_due_idx ON email_outbox (next_attempt_at) WHERE status = 'PENDING';
+-- pooled ids like the other entity sequences above
+ALTER SEQUENCE email_outbox_id_seq INCREMENT BY 50;
+SELECT setval('email_outbox_id_seq', (SELECT coalesce(max(id), 0) + 50 FROM email_outbox));
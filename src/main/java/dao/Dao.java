@@ -1,8 +1,11 @@
 package dao;
 
+import dto.BatchReportDto;
+import dto.MultiGetResultDto;
 import entity.BaseEntity;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 
@@ -17,7 +20,16 @@ public interface Dao<K extends Serializable, E extends BaseEntity<K>> {
 	}
 
 	Optional<E> getById(K id, Map<String, Object> properties);
+
+	MultiGetResultDto<K, E> getAllByIds(Collection<K> ids);
+
 	void delete(E entity);
 
 	void update(E entity);
+
+	BatchReportDto insertAll(Collection<E> entities);
+
+	BatchReportDto updateAll(Collection<E> entities);
+
+	BatchReportDto deleteAllById(Collection<K> ids);
 }
@@ -1,18 +1,47 @@
 package dao;
 
+import dto.BatchReportDto;
+import dto.MultiGetResultDto;
 import entity.BaseEntity;
 import jakarta.persistence.EntityManager;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.MultiIdentifierLoadAccess;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.envers.Audited;
+import org.hibernate.query.SelectionQuery;
+import utlis.jdbc.PropertiesUtil;
 
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
+/*
+ * The *All operations run inside the caller's transaction and flush and clear the persistence context after every
+ * batch, so a run of any length keeps at most one batch of entities in memory. Clearing detaches every entity of
+ * the session, including ones the caller loaded before the call.
+ */
+@Slf4j
 @RequiredArgsConstructor
 public abstract class DaoBase<K extends Serializable, E extends BaseEntity<K>> implements Dao<K, E> {
 
+    static final int MULTI_GET_CHUNK_SIZE = PropertiesUtil.getIntProperty("dao.multi.get.chunk.size", 100);
+    private static final int STREAM_FETCH_SIZE = PropertiesUtil.getIntProperty("dao.stream.fetch.size", 500);
+
     @Getter(AccessLevel.PROTECTED)
     private final EntityManager entityManager;
     private final Class<E> clazz;
@@ -39,4 +68,147 @@ public abstract class DaoBase<K extends Serializable, E extends BaseEntity<K>> i
         return Optional.ofNullable(entityManager.find(clazz, id, properties));
     }
 
+    /*
+     * Ids already in the session or in the second-level cache are served from there; only the misses reach the
+     * database, as one query per chunk of MULTI_GET_CHUNK_SIZE ids. The chunks are cut here because Hibernate sends
+     * all misses as one array parameter on PostgreSQL whatever the batch size. Duplicate ids are answered once,
+     * deleted-but-not-flushed rows count as missing.
+     */
+    @Override
+    public MultiGetResultDto<K, E> getAllByIds(Collection<K> ids) {
+        List<K> requested = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        MultiIdentifierLoadAccess<E> loadAccess = entityManager.unwrap(Session.class)
+                .byMultipleIds(clazz)
+                .with(CacheMode.NORMAL)
+                .enableSessionCheck(true)
+                .enableReturnOfDeletedEntities(false)
+                .enableOrderedReturn(true);
+        List<E> found = new ArrayList<>(requested.size());
+        List<K> missingIds = new ArrayList<>();
+        for (int from = 0; from < requested.size(); from += MULTI_GET_CHUNK_SIZE) {
+            List<K> chunk = requested.subList(from, Math.min(from + MULTI_GET_CHUNK_SIZE, requested.size()));
+            List<E> loaded = loadAccess.multiLoad(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                E entity = loaded.get(i);
+                if (entity == null) {
+                    missingIds.add(chunk.get(i));
+                } else {
+                    found.add(entity);
+                }
+            }
+        }
+        return MultiGetResultDto.of(found, missingIds);
+    }
+
+    @Override
+    public BatchReportDto insertAll(Collection<E> entities) {
+        return inBatches(entities, batch -> {
+            batch.forEach(entityManager::persist);
+            return batch.size();
+        });
+    }
+
+    @Override
+    public BatchReportDto updateAll(Collection<E> entities) {
+        return inBatches(entities, batch -> {
+            batch.forEach(entityManager::merge);
+            return batch.size();
+        });
+    }
+
+    // One set-based delete per batch of ids, or one multi-id load and a batch of removes when the rows have to go
+    // through the session's event listeners and cascades; ids without a row are not counted as processed
+    @Override
+    public BatchReportDto deleteAllById(Collection<K> ids) {
+        if (deletesInBulk()) {
+            String delete = "delete from " + entityManager.getMetamodel().entity(clazz).getName()
+                            + " e where e.id in :ids";
+            return inBatches(ids, batch -> entityManager.createQuery(delete)
+                    .setParameter("ids", batch)
+                    .executeUpdate());
+        }
+        return inBatches(ids, batch -> {
+            List<E> found = entityManager.unwrap(Session.class)
+                    .byMultipleIds(clazz)
+                    .multiLoad(batch)
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .toList();
+            found.forEach(entityManager::remove);
+            return found.size();
+        });
+    }
+
+    // Audited entities need an Envers revision per row and bulk JPQL skips it; DAOs of entities with cascades or
+    // delete listeners override this as well
+    protected boolean deletesInBulk() {
+        return !clazz.isAnnotationPresent(Audited.class);
+    }
+
+    // The operation returns how many rows its batch touched
+    private <T> BatchReportDto inBatches(Collection<T> elements, ToIntFunction<List<T>> operation) {
+        int batchSize = batchSize();
+        List<Duration> timings = new ArrayList<>((elements.size() + batchSize - 1) / batchSize);
+        Iterator<T> iterator = elements.iterator();
+        long processed = 0;
+        while (iterator.hasNext()) {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+            }
+            long start = System.nanoTime();
+            processed += operation.applyAsInt(batch);
+            entityManager.flush();
+            entityManager.clear();
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            timings.add(elapsed);
+            log.debug("{} batch {} of {} rows took {} ms", clazz.getSimpleName(), timings.size(), batch.size(),
+                      elapsed.toMillis());
+        }
+        return BatchReportDto.of(processed, timings);
+    }
+
+    /*
+     * Rows come through a server-side cursor of a stateless session of their own, STREAM_FETCH_SIZE at a time, and
+     * are never attached to a persistence context, so memory stays flat however many rows there are. The stream
+     * holds a connection and a read transaction until it is closed. Lazy associations that the query does not
+     * fetch cannot be initialized later.
+     */
+    protected <T> Stream<T> stream(Function<StatelessSession, SelectionQuery<T>> query) {
+        StatelessSession session = entityManager.unwrap(Session.class)
+                .getSessionFactory()
+                .openStatelessSession();
+        try {
+            // the PostgreSQL driver only uses a cursor outside of auto-commit
+            session.beginTransaction();
+            return query.apply(session)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .getResultStream()
+                    .onClose(() -> close(session));
+        } catch (RuntimeException e) {
+            close(session);
+            throw e;
+        }
+    }
+
+    private static void close(StatelessSession session) {
+        try {
+            if (session.getTransaction().isActive()) {
+                session.getTransaction().commit();
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    // A batch is one JDBC batch, so flushes never split statements that could have gone out together
+    private int batchSize() {
+        Object configured = entityManager.getEntityManagerFactory()
+                .getProperties()
+                .get(AvailableSettings.STATEMENT_BATCH_SIZE);
+        return configured == null ? BaseEntity.ID_BLOCK_SIZE : Integer.parseInt(configured.toString().trim());
+    }
 }
@@ -0,0 +1,111 @@
+package dao;
+
+import entity.EmailOutboxEntity;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EmailOutboxDao extends DaoBase<Long, EmailOutboxEntity> {
+
+    // takes a whole id block of its own, so it never collides with the ids Hibernate hands out from the sequence
+    private static final String ENQUEUE = """
+            insert into market.email_outbox (id, recipient, link, status, attempts, next_attempt_at, created_at)
+            values (nextval('market.email_outbox_id_seq'), ?, ?, 'PENDING', 0, now(), now())""";
+    // Pushing next_attempt_at past the lease is the claim: a node that dies mid-send leaves the row due again later
+    private static final String CLAIM_DUE = """
+            update market.email_outbox o
+            set next_attempt_at = now() + make_interval(secs => ?)
+            where o.id in (select id from market.email_outbox
+                           where status = 'PENDING' and next_attempt_at <= now()
+                           order by next_attempt_at
+                           limit ?
+                           for update skip locked)
+            returning o.id, o.recipient, o.link, o.attempts""";
+    private static final String MARK_SENT = """
+            update market.email_outbox
+            set status = 'SENT', sent_at = now(), last_error = null
+            where id = ?""";
+    private static final String RETRY_LATER = """
+            update market.email_outbox
+            set attempts = ?, last_error = ?, next_attempt_at = now() + make_interval(secs => ?)
+            where id = ?""";
+    private static final String MARK_FAILED = """
+            update market.email_outbox
+            set status = 'FAILED', attempts = ?, last_error = ?
+            where id = ?""";
+
+    @Inject
+    public EmailOutboxDao(EntityManager entityManager) {
+        super(entityManager, EmailOutboxEntity.class);
+    }
+
+    // Plain JDBC, so it is safe to call from an entity listener in the middle of a flush
+    public void enqueue(String recipient, String link) {
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ENQUEUE)) {
+                statement.setString(1, recipient);
+                statement.setString(2, link);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    public List<OutboxEmail> claimDue(int limit, Duration lease) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(CLAIM_DUE)) {
+                statement.setLong(1, lease.toSeconds());
+                statement.setInt(2, limit);
+                List<OutboxEmail> claimed = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        claimed.add(new OutboxEmail(resultSet.getLong(1), resultSet.getString(2),
+                                                    resultSet.getString(3), resultSet.getInt(4)));
+                    }
+                }
+                return claimed;
+            }
+        });
+    }
+
+    public boolean markSent(long id) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MARK_SENT)) {
+                statement.setLong(1, id);
+                return statement.executeUpdate() == 1;
+            }
+        });
+    }
+
+    public boolean retryLater(long id, int attempts, String error, Duration delay) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(RETRY_LATER)) {
+                statement.setInt(1, attempts);
+                statement.setString(2, error);
+                statement.setLong(3, delay.toSeconds());
+                statement.setLong(4, id);
+                return statement.executeUpdate() == 1;
+            }
+        });
+    }
+
+    public boolean markFailed(long id, int attempts, String error) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MARK_FAILED)) {
+                statement.setInt(1, attempts);
+                statement.setString(2, error);
+                statement.setLong(3, id);
+                return statement.executeUpdate() == 1;
+            }
+        });
+    }
+
+    // attempts counts the sends that failed before this claim
+    public record OutboxEmail(long id, String recipient, String link, int attempts) {
+    }
+}
@@ -1,10 +1,25 @@
 package dao;
 
+import com.querydsl.jpa.impl.JPAUpdateClause;
 import entity.ImportantStatisticEntity;
 import jakarta.persistence.EntityManager;
 
+import static entity.QImportantStatisticEntity.importantStatisticEntity;
+
 public class ImportantStatisticDao extends DaoBase<Long, ImportantStatisticEntity> {
     public ImportantStatisticDao(EntityManager entityManager) {
         super(entityManager, ImportantStatisticEntity.class);
     }
+
+    // Relative update: the row lock is held only for this statement, not for the writer's whole transaction
+    public long addToCounters(Long id, long allUsers, long premiumUsers, long sales, long items) {
+        return new JPAUpdateClause(getEntityManager(), importantStatisticEntity)
+                .set(importantStatisticEntity.allUsersCounter, importantStatisticEntity.allUsersCounter.add(allUsers))
+                .set(importantStatisticEntity.premiumUsersCounter,
+                     importantStatisticEntity.premiumUsersCounter.add(premiumUsers))
+                .set(importantStatisticEntity.salesCounter, importantStatisticEntity.salesCounter.add(sales))
+                .set(importantStatisticEntity.itemsCounter, importantStatisticEntity.itemsCounter.add(items))
+                .where(importantStatisticEntity.id.eq(id))
+                .execute();
+    }
 }
@@ -0,0 +1,83 @@
+package dao;
+
+import entity.ItemSalesInformationEntity;
+import jakarta.persistence.EntityManager;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+// The quantity column as the stock itself (stock.mode = column); with the ledger it is only written by the snapshots
+public class ItemSalesInformationDao extends DaoBase<Long, ItemSalesInformationEntity> {
+
+    // Matches no entity table, so Hibernate does not drop the whole item_sales_information cache region
+    // after the statement; the one affected entry is evicted explicitly instead
+    private static final String STOCK_QUERY_SPACE = "market.item_sales_information.quantity";
+    // Active checkout holds count against the stock like they do in the ledger; active_holds() in
+    // market_repository.sql reads them with a fresh snapshot when the row is re-checked after a lock wait
+    private static final String DECREMENT_QUANTITY = """
+            update market.item_sales_information isi
+            set quantity = isi.quantity - :quantity
+            where isi.id = :id and isi.quantity - market.active_holds(isi.id) >= :quantity""";
+    private static final String ADJUST_QUANTITY = """
+            update market.item_sales_information
+            set quantity = quantity + :delta
+            where id = :id""";
+    private static final String LOCK_QUANTITY = """
+            select quantity from market.item_sales_information where id = ? for no key update""";
+
+    public ItemSalesInformationDao(EntityManager entityManager) {
+        super(entityManager, ItemSalesInformationEntity.class);
+    }
+
+    // One guarded statement instead of read-check-write: false means there is not enough stock (or no such row)
+    public boolean decrementQuantity(Long id, int quantity) {
+        SessionImplementor session = getEntityManager().unwrap(SessionImplementor.class);
+        int updated = session.createNativeQuery(DECREMENT_QUANTITY)
+                .addSynchronizedQuerySpace(STOCK_QUERY_SPACE)
+                .setParameter("quantity", quantity)
+                .setParameter("id", id)
+                .executeUpdate();
+        if (updated == 0) {
+            return false;
+        }
+        evict(session, id);
+        return true;
+    }
+
+    // Restocks and corrections: unguarded, the caller decides the delta
+    public boolean adjustQuantity(Long id, int delta) {
+        SessionImplementor session = getEntityManager().unwrap(SessionImplementor.class);
+        int updated = session.createNativeQuery(ADJUST_QUANTITY)
+                .addSynchronizedQuerySpace(STOCK_QUERY_SPACE)
+                .setParameter("delta", delta)
+                .setParameter("id", id)
+                .executeUpdate();
+        if (updated == 0) {
+            return false;
+        }
+        evict(session, id);
+        return true;
+    }
+
+    // Locks the row until the transaction ends, so a correction or a hold computed from it cannot race a sale
+    public long lockQuantity(Long id) {
+        return getEntityManager().unwrap(SessionImplementor.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(LOCK_QUANTITY)) {
+                statement.setLong(1, id);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getLong(1) : 0L;
+                }
+            }
+        });
+    }
+
+    private static void evict(SessionImplementor session, Long id) {
+        CacheImplementor cache = session.getFactory().getCache();
+        cache.evictEntityData(ItemSalesInformationEntity.class, id);
+        // a concurrent reader may cache the pre-commit row in the meantime, so evict once more after completion
+        session.getActionQueue().registerProcess(
+                (success, completedSession) -> cache.evictEntityData(ItemSalesInformationEntity.class, id));
+    }
+}
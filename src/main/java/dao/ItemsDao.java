@@ -1,23 +1,54 @@
 package dao;
 
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.jpa.impl.JPAQuery;
+import dto.ItemsInfoDto;
 import dto.filter.AttributesFilter;
+import dto.filter.CatalogSyncToken;
+import dto.filter.ItemsCursor;
+import dto.filter.ItemsSort;
 import entity.ItemsEntity;
 import entity.enums.Attributes;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import static entity.QItemSalesInformationEntity.itemSalesInformationEntity;
+import static dao.ItemsInfoProjection.ITEMS_INFO;
 import static entity.QItemsEntity.itemsEntity;
 
 @Slf4j
 public class ItemsDao extends DaoBase<Long, ItemsEntity> {
 
+    public static final String CATALOG_QUERY_REGION = "query.items.catalog";
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+    // the same join as the listing being counted, so the estimate and the rows that can be paged agree
+    private static final String EXPLAIN_ITEMS = "EXPLAIN SELECT 1 FROM market.items i";
+    private static final String EXPLAIN_ITEMS_WITH_SALES_INFORMATION = EXPLAIN_ITEMS + """
+
+            JOIN market.item_sales_information isi ON isi.id = i.item_sales_information_id""";
+    // Changes of transactions below the snapshot's xmin are final: no running transaction can add one behind them
+    private static final String CHANGES_AFTER = """
+            select item_id, change_xid::text, change_id, deleted
+            from market.catalog_changes
+            where (change_xid, change_id) > (?::text::xid8, ?)
+              and change_xid < pg_snapshot_xmin(pg_current_snapshot())
+            order by change_xid, change_id
+            limit ?""";
+
     @Inject
     public ItemsDao(EntityManager entityManager) {
         super(entityManager, ItemsEntity.class);
@@ -32,15 +63,9 @@ public class ItemsDao extends DaoBase<Long, ItemsEntity> {
     }
 
     public List<ItemsEntity> findItemsWithParameters(AttributesFilter filter, long page, long limit) {
-        Predicate predicate = QPredicate.builder()
-                .add(filter.getBrand(), itemsEntity.brand::eq)
-                .add(filter.getOs(), itemsEntity.os::eq)
-                .add(filter.getInternalMemory(), itemsEntity.internalMemory::eq)
-                .add(filter.getRam(), itemsEntity.ram::eq)
-                .buildAnd();
         return new JPAQuery<ItemsEntity>(getEntityManager()).select(itemsEntity)
                 .from(itemsEntity)
-                .where(predicate)
+                .where(attributesPredicate(filter))
                 .limit(limit)
                 .offset(Math.abs(limit * page - limit))
                 .fetch();
@@ -67,5 +92,153 @@ public class ItemsDao extends DaoBase<Long, ItemsEntity> {
         return items.stream().map(Optional::ofNullable).collect(Collectors.toList());
     }
 
-}
+    public List<ItemsInfoDto> findItemsInfoWithOffsetAndLimit(long page, long limit) {
+        return cacheable(new JPAQuery<ItemsInfoDto>(getEntityManager())).select(ITEMS_INFO)
+                .from(itemsEntity)
+                .join(itemsEntity.itemSalesInformation, itemSalesInformationEntity)
+                .limit(limit)
+                .offset(Math.abs(limit * page - limit))
+                .fetch();
+    }
+
+    public List<ItemsInfoDto> findItemsInfoWithParameters(AttributesFilter filter, long page, long limit) {
+        return cacheable(new JPAQuery<ItemsInfoDto>(getEntityManager())).select(ITEMS_INFO)
+                .from(itemsEntity)
+                .join(itemsEntity.itemSalesInformation, itemSalesInformationEntity)
+                .where(attributesPredicate(filter))
+                .limit(limit)
+                .offset(Math.abs(limit * page - limit))
+                .fetch();
+    }
+
+    // Keyset (seek) pagination: continues right after the cursor row instead of skipping offset rows
+    public List<ItemsEntity> findItemsAfter(AttributesFilter filter, ItemsSort sort, ItemsCursor after, long limit) {
+        Predicate predicate = QPredicate.builder()
+                .add(attributesPredicate(filter), p -> p)
+                .add(after, cursor -> keysetPredicate(sort, cursor))
+                .buildAnd();
+        JPAQuery<ItemsEntity> query = new JPAQuery<ItemsEntity>(getEntityManager()).select(itemsEntity)
+                .from(itemsEntity);
+        if (joinsSalesInformation(sort)) {
+            query.join(itemsEntity.itemSalesInformation, itemSalesInformationEntity);
+        }
+        return query.where(predicate)
+                .orderBy(keysetOrder(sort))
+                .limit(limit)
+                .fetch();
+    }
 
+    // Only the price sort reads item_sales_information, so only it leaves out phones that have none
+    public static boolean joinsSalesInformation(ItemsSort sort) {
+        return sort == ItemsSort.PRICE;
+    }
+
+    // withSalesInformation has to match the listing being counted: the offset listing and the price sort join
+    public long countItemsWithParameters(AttributesFilter filter, boolean withSalesInformation) {
+        JPAQuery<Long> query = cacheable(new JPAQuery<Long>(getEntityManager())).select(itemsEntity.count())
+                .from(itemsEntity);
+        if (withSalesInformation) {
+            query.join(itemsEntity.itemSalesInformation, itemSalesInformationEntity);
+        }
+        Long count = query.where(attributesPredicate(filter))
+                .fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    // Row estimate taken from planner statistics, -1 when the table has never been analyzed
+    public long estimateItemsWithParameters(AttributesFilter filter, boolean withSalesInformation) {
+        String sql = (withSalesInformation ? EXPLAIN_ITEMS_WITH_SALES_INFORMATION : EXPLAIN_ITEMS)
+                     + whereClause(filter);
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(sql)) {
+                if (!resultSet.next()) {
+                    return -1L;
+                }
+                Matcher matcher = PLAN_ROWS.matcher(resultSet.getString(1));
+                return matcher.find() ? Long.parseLong(matcher.group(1)) : -1L;
+            }
+        });
+    }
+
+    // The latest change of every phone changed after the token, in token order
+    public List<CatalogChange> findChangesAfter(CatalogSyncToken token, int limit) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(CHANGES_AFTER)) {
+                statement.setLong(1, token.getTransactionId());
+                statement.setLong(2, token.getChangeId());
+                statement.setInt(3, limit);
+                List<CatalogChange> changes = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        changes.add(new CatalogChange(resultSet.getLong(1), CatalogSyncToken.of(
+                                Long.parseLong(resultSet.getString(2)), resultSet.getLong(3)), resultSet.getBoolean(4)));
+                    }
+                }
+                return changes;
+            }
+        });
+    }
+
+    // Opt-in query-result caching. Predicates are always built in the same order, so equal filters and pages
+    // give the same cache key; the entry is invalidated whenever items or item_sales_information are written
+    private static <T> JPAQuery<T> cacheable(JPAQuery<T> query) {
+        return query.setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, CATALOG_QUERY_REGION);
+    }
+
+    // Only enum constant names are inlined, so the statement cannot carry user input
+    private static String whereClause(AttributesFilter filter) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getBrand() != null) {
+            conditions.add("i.brand = '%s'".formatted(filter.getBrand().name()));
+        }
+        if (filter.getOs() != null) {
+            conditions.add("i.os = '%s'".formatted(filter.getOs().name()));
+        }
+        if (filter.getInternalMemory() != null) {
+            conditions.add("i.internal_memory = '%s'".formatted(filter.getInternalMemory().name()));
+        }
+        if (filter.getRam() != null) {
+            conditions.add("i.ram = '%s'".formatted(filter.getRam().name()));
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static Predicate attributesPredicate(AttributesFilter filter) {
+        return QPredicate.builder()
+                .add(filter.getBrand(), itemsEntity.brand::eq)
+                .add(filter.getOs(), itemsEntity.os::eq)
+                .add(filter.getInternalMemory(), itemsEntity.internalMemory::eq)
+                .add(filter.getRam(), itemsEntity.ram::eq)
+                .buildAnd();
+    }
+
+    private static Predicate keysetPredicate(ItemsSort sort, ItemsCursor cursor) {
+        Long id = cursor.getId();
+        return switch (sort) {
+            // phones without a price come last, so after one of them only unpriced phones follow
+            case PRICE -> cursor.getKey().isEmpty()
+                    ? itemSalesInformationEntity.price.isNull().and(itemSalesInformationEntity.id.gt(id))
+                    : itemSalesInformationEntity.price.gt(Double.valueOf(cursor.getKey()))
+                            .or(itemSalesInformationEntity.price.eq(Double.valueOf(cursor.getKey()))
+                                        .and(itemSalesInformationEntity.id.gt(id)))
+                            .or(itemSalesInformationEntity.price.isNull());
+            case MODEL -> itemsEntity.model.gt(cursor.getKey())
+                    .or(itemsEntity.model.eq(cursor.getKey()).and(itemsEntity.id.gt(id)));
+            case NEWEST -> itemsEntity.id.lt(id);
+        };
+    }
+
+    private static OrderSpecifier<?>[] keysetOrder(ItemsSort sort) {
+        return switch (sort) {
+            case PRICE -> new OrderSpecifier<?>[]{itemSalesInformationEntity.price.asc().nullsLast(),
+                    itemSalesInformationEntity.id.asc()};
+            case MODEL -> new OrderSpecifier<?>[]{itemsEntity.model.asc(), itemsEntity.id.asc()};
+            case NEWEST -> new OrderSpecifier<?>[]{itemsEntity.id.desc()};
+        };
+    }
+
+    public record CatalogChange(Long itemId, CatalogSyncToken token, boolean deleted) {
+    }
+}
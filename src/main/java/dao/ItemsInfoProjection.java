@@ -0,0 +1,43 @@
+package dao;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.MappingProjection;
+import dto.ItemsInfoDto;
+import entity.enums.Attributes;
+import entity.enums.CurrencyEnum;
+
+import static entity.QItemSalesInformationEntity.itemSalesInformationEntity;
+import static entity.QItemsEntity.itemsEntity;
+
+// Selects only the ItemsInfoDto columns; rows are plain values, nothing is attached to the persistence context
+class ItemsInfoProjection extends MappingProjection<ItemsInfoDto> {
+
+    static final ItemsInfoProjection ITEMS_INFO = new ItemsInfoProjection();
+
+    private ItemsInfoProjection() {
+        super(ItemsInfoDto.class, itemsEntity.model, itemsEntity.brand, itemsEntity.color, itemsEntity.os,
+              itemsEntity.image, itemsEntity.internalMemory, itemsEntity.ram,
+              itemSalesInformationEntity.price, itemSalesInformationEntity.currency);
+    }
+
+    @Override
+    protected ItemsInfoDto map(Tuple row) {
+        Attributes.BrandEnum brand = row.get(itemsEntity.brand);
+        Attributes.OperatingSystemEnum os = row.get(itemsEntity.os);
+        Attributes.InternalMemoryEnum internalMemory = row.get(itemsEntity.internalMemory);
+        Attributes.RamEnum ram = row.get(itemsEntity.ram);
+        Double price = row.get(itemSalesInformationEntity.price);
+        CurrencyEnum currency = row.get(itemSalesInformationEntity.currency);
+        return ItemsInfoDto.builder()
+                .model(row.get(itemsEntity.model))
+                .brand(brand == null ? null : brand.getBrand())
+                .color(row.get(itemsEntity.color))
+                .os(os == null ? null : os.getOs())
+                .image(row.get(itemsEntity.image))
+                .internalMemory(internalMemory == null ? null : internalMemory.getInternalMemory())
+                .ram(ram == null ? null : ram.getRam())
+                .price(price == null ? null : String.valueOf(price))
+                .currency(currency == null ? null : currency.name())
+                .build();
+    }
+}
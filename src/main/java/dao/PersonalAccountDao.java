@@ -14,6 +14,8 @@ import org.hibernate.graph.GraphSemantic;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static entity.QItemsEntity.itemsEntity;
 import static entity.QPersonalAccountEntity.personalAccountEntity;
@@ -22,11 +24,23 @@ import static entity.QSellHistoryEntity.sellHistoryEntity;
 @Slf4j
 public class PersonalAccountDao extends DaoBase<Long, PersonalAccountEntity> {
 
+    private static final String ACCOUNTS_WITH_PURCHASES = """
+            select p from PersonalAccountEntity p
+            left join fetch p.phonePurchases s
+            left join fetch s.itemId
+            order by p.id""";
+
     @Inject
     public PersonalAccountDao(EntityManager entityManager) {
         super(entityManager, PersonalAccountEntity.class);
     }
 
+    // the purchases are removed by cascade together with the account
+    @Override
+    protected boolean deletesInBulk() {
+        return false;
+    }
+
     public List<PersonalAccountEntity> getAll() {
         return new JPAQuery<PersonalAccountEntity>(getEntityManager())
                 .select(personalAccountEntity)
@@ -46,6 +60,17 @@ public class PersonalAccountDao extends DaoBase<Long, PersonalAccountEntity> {
 
     }
 
+    // Rows of one account arrive together, ordered by its id, and are folded into one entity with its purchases
+    public Stream<PersonalAccountEntity> streamAllWithPhonePurchases() {
+        return stream(session -> session.createSelectionQuery(ACCOUNTS_WITH_PURCHASES, PersonalAccountEntity.class));
+    }
+
+    public void forEachWithPhonePurchases(Consumer<PersonalAccountEntity> action) {
+        try (Stream<PersonalAccountEntity> accounts = streamAllWithPhonePurchases()) {
+            accounts.forEach(action);
+        }
+    }
+
     public Optional<PersonalAccountEntity> validateAuth(String email, String password) {
         return Optional.ofNullable(new JPAQuery<PersonalAccountEntity>(getEntityManager())
                                            .select(personalAccountEntity)
@@ -74,6 +99,7 @@ public class PersonalAccountDao extends DaoBase<Long, PersonalAccountEntity> {
                 .fetch();
     }
 
+    // Aggregates the whole history on every call; pages read index.SpendersLeaderboard instead
     public List<Tuple> getTopTenMostSpenders() {
         return new JPAQuery<Object[]>(getEntityManager())
                 .select(personalAccountEntity, itemsEntity.itemSalesInformation.price.sum())
@@ -82,6 +108,7 @@ public class PersonalAccountDao extends DaoBase<Long, PersonalAccountEntity> {
                 .join(sellHistoryEntity.itemId, itemsEntity)
                 .groupBy(personalAccountEntity.id)
                 .orderBy(itemsEntity.itemSalesInformation.price.sum().desc())
+                .limit(10)
                 .fetch();
     }
 
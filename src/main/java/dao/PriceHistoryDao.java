@@ -0,0 +1,45 @@
+package dao;
+
+import entity.ItemSalesInformationEntity;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.RevisionType;
+import org.hibernate.envers.query.AuditEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Prices of item_sales_information rows as Envers recorded them in history.item_sales_information_AUD
+public class PriceHistoryDao extends DaoBase<Long, ItemSalesInformationEntity> {
+
+    @Inject
+    public PriceHistoryDao(EntityManager entityManager) {
+        super(entityManager, ItemSalesInformationEntity.class);
+    }
+
+    // Revisions of the row newer than afterRevision, oldest first; a deleted row has no price to chart
+    public List<PriceRevision> getRevisionsAfter(Long salesInformationId, long afterRevision) {
+        List<?> rows = AuditReaderFactory.get(getEntityManager())
+                .createQuery()
+                .forRevisionsOfEntity(ItemSalesInformationEntity.class, false, true)
+                .addProjection(AuditEntity.revisionNumber())
+                .addProjection(AuditEntity.revisionProperty("timestamp"))
+                .addProjection(AuditEntity.property("price"))
+                .add(AuditEntity.id().eq(salesInformationId))
+                .add(AuditEntity.revisionNumber().gt(afterRevision))
+                .add(AuditEntity.revisionType().ne(RevisionType.DEL))
+                .addOrder(AuditEntity.revisionNumber().asc())
+                .getResultList();
+        List<PriceRevision> revisions = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            revisions.add(new PriceRevision(((Number) columns[0]).longValue(), ((Number) columns[1]).longValue(),
+                                            (Double) columns[2]));
+        }
+        return revisions;
+    }
+
+    public record PriceRevision(long revision, long timestamp, Double price) {
+    }
+}
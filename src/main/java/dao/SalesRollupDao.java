@@ -0,0 +1,277 @@
+package dao;
+
+import dto.SalesTotalsDto;
+import dto.filter.SalesGroup;
+import entity.SalesRollupEntity;
+import entity.SalesRollupId;
+import entity.enums.Attributes;
+import entity.enums.RollupGranularity;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lombok.Value;
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/*
+ * Hourly and daily sales per phone and currency. The rollups hold the sales of every transaction below the
+ * watermark xid, in the buckets of their sell_date; a range query reads whole days from the daily rows, whole hours
+ * at its edges from the hourly rows, and from sell_history the partial hours at its edges plus the sales of
+ * transactions from the watermark on.
+ */
+public class SalesRollupDao extends DaoBase<SalesRollupId, SalesRollupEntity> {
+
+    private static final String WATERMARK = "select rolled_up_xid::text from market.sales_rollup_watermark where id = 1";
+    private static final String LOCK_WATERMARK = WATERMARK + " for update";
+    // keeps a roll-up from moving rows out of the raw tail between reading the watermark and the totals
+    private static final String SHARE_WATERMARK = WATERMARK + " for share";
+    // Transactions below the snapshot's xmin have all ended, so no sale can still appear below it
+    private static final String HORIZON = "select pg_snapshot_xmin(pg_current_snapshot())::text";
+    private static final String OPEN_WATERMARK = """
+            insert into market.sales_rollup_watermark (id, rolled_up_xid)
+            values (1, pg_snapshot_xmin(pg_current_snapshot()))
+            on conflict (id) do nothing""";
+    private static final String MOVE_WATERMARK = """
+            update market.sales_rollup_watermark set rolled_up_xid = ?::text::xid8 where id = 1""";
+    private static final String FIRST_SALE = "select min(sell_date) from market.sell_history";
+    private static final String LAST_SALE = "select max(sell_date) from market.sell_history";
+    private static final String ROLL_UP = """
+            insert into market.sales_rollup (granularity, bucket_start, item_id, currency, brand, units, revenue,
+                                             order_count)
+            select ?, date_trunc(?, s.sell_date at time zone 'UTC') at time zone 'UTC', s.item_id, isi.currency,
+                   min(i.brand), sum(s.quantity), sum(s.price * s.quantity), count(*)
+            from market.sell_history s
+            join market.items i on i.item_id = s.item_id
+            join market.item_sales_information isi on isi.id = i.item_sales_information_id
+            where %s
+            group by 2, s.item_id, isi.currency
+            on conflict (granularity, bucket_start, item_id, currency) do update
+            set brand = excluded.brand,
+                units = sales_rollup.units + excluded.units,
+                revenue = sales_rollup.revenue + excluded.revenue,
+                order_count = sales_rollup.order_count + excluded.order_count""";
+    private static final String ROLL_UP_WINDOW = ROLL_UP.formatted(
+            "s.created_xid >= ?::text::xid8 and s.created_xid < ?::text::xid8");
+    private static final String ROLL_UP_DAYS = ROLL_UP.formatted(
+            "s.sell_date >= ? and s.sell_date < ? and s.created_xid < ?::text::xid8");
+    private static final String CLEAR = "delete from market.sales_rollup where bucket_start >= ? and bucket_start < ?";
+    private static final String TOTALS = """
+            select %1$s, sum(units), sum(revenue), sum(order_count)
+            from (select item_id, brand, currency, units, revenue, order_count
+                  from market.sales_rollup
+                  where granularity = 'DAY' and bucket_start >= ? and bucket_start < ?
+                  union all
+                  select item_id, brand, currency, units, revenue, order_count
+                  from market.sales_rollup
+                  where granularity = 'HOUR'
+                    and (bucket_start >= ? and bucket_start < ? or bucket_start >= ? and bucket_start < ?)
+                  union all
+                  select s.item_id, i.brand, isi.currency, s.quantity, s.price * s.quantity, 1
+                  from market.sell_history s
+                  join market.items i on i.item_id = s.item_id
+                  join market.item_sales_information isi on isi.id = i.item_sales_information_id
+                  where s.sell_date >= ? and s.sell_date < ? or s.sell_date >= ? and s.sell_date < ?
+                     or s.created_xid >= ?::text::xid8 and s.sell_date >= ? and s.sell_date < ?) parts
+            group by %2$s
+            order by 5 desc""";
+
+    @Inject
+    public SalesRollupDao(EntityManager entityManager) {
+        super(entityManager, SalesRollupEntity.class);
+    }
+
+    public List<SalesTotalsDto> totals(Instant from, Instant to, SalesGroup group) {
+        return session().doReturningWork(connection -> {
+            Plan plan = Plan.of(from, to);
+            String watermark = Objects.requireNonNullElse(text(connection, SHARE_WATERMARK), "0");
+            String[] columns = switch (group) {
+                case ITEM -> new String[]{"item_id, brand, currency", "item_id, brand, currency"};
+                case BRAND -> new String[]{"null::bigint, brand, currency", "brand, currency"};
+                case CURRENCY -> new String[]{"null::bigint, null::varchar, currency", "currency"};
+            };
+            List<SalesTotalsDto> totals = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(TOTALS.formatted(columns[0], columns[1]))) {
+                int index = 1;
+                for (Window window : List.of(plan.getDays(), plan.getHeadHours(), plan.getTailHours(),
+                                             plan.getHeadRaw(), plan.getTailRaw())) {
+                    statement.setTimestamp(index++, Timestamp.from(window.getFrom()));
+                    statement.setTimestamp(index++, Timestamp.from(window.getTo()));
+                }
+                statement.setString(index++, watermark);
+                statement.setTimestamp(index++, Timestamp.from(plan.getRolledUp().getFrom()));
+                statement.setTimestamp(index, Timestamp.from(plan.getRolledUp().getTo()));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        String brand = resultSet.getString(2);
+                        totals.add(SalesTotalsDto.builder()
+                                           .itemId(resultSet.getObject(1, Long.class))
+                                           .brand(brand == null ? null : Attributes.BrandEnum.valueOf(brand).getBrand())
+                                           .currency(resultSet.getString(3))
+                                           .units(resultSet.getLong(4))
+                                           .revenue(resultSet.getDouble(5))
+                                           .orderCount(resultSet.getLong(6))
+                                           .build());
+                    }
+                }
+            }
+            return totals;
+        });
+    }
+
+    /*
+     * Rolls the sales of the transactions between the watermark and the xmin of the current snapshot into both
+     * granularities and moves the watermark there. Every transaction below that xmin has ended, so a sale that
+     * commits long after its sell_date is rolled up by the first run after its commit, into the bucket of its
+     * sell_date. The watermark row lock serializes concurrent roll-ups and rebuilds.
+     */
+    public boolean rollUp() {
+        return session().doReturningWork(connection -> {
+            String watermark = text(connection, LOCK_WATERMARK);
+            if (watermark == null) {
+                return false;
+            }
+            String horizon = text(connection, HORIZON);
+            if (Long.parseLong(horizon) <= Long.parseLong(watermark)) {
+                return false;
+            }
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                try (PreparedStatement statement = connection.prepareStatement(ROLL_UP_WINDOW)) {
+                    statement.setString(1, granularity.name());
+                    statement.setString(2, granularity.name().toLowerCase());
+                    statement.setString(3, watermark);
+                    statement.setString(4, horizon);
+                    statement.executeUpdate();
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(MOVE_WATERMARK)) {
+                statement.setString(1, horizon);
+                statement.executeUpdate();
+            }
+            return true;
+        });
+    }
+
+    // Recomputes whole days from the sales below the watermark; the ones above it are left to the next roll-up
+    public void rebuild(Instant fromDay, Instant toDay) {
+        session().doWork(connection -> {
+            String watermark = text(connection, SHARE_WATERMARK);
+            if (watermark == null) {
+                return;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(CLEAR)) {
+                statement.setTimestamp(1, Timestamp.from(fromDay));
+                statement.setTimestamp(2, Timestamp.from(toDay));
+                statement.executeUpdate();
+            }
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                try (PreparedStatement statement = connection.prepareStatement(ROLL_UP_DAYS)) {
+                    statement.setString(1, granularity.name());
+                    statement.setString(2, granularity.name().toLowerCase());
+                    statement.setTimestamp(3, Timestamp.from(fromDay));
+                    statement.setTimestamp(4, Timestamp.from(toDay));
+                    statement.setString(5, watermark);
+                    statement.executeUpdate();
+                }
+            }
+        });
+    }
+
+    // Puts the watermark at the current horizon unless there is one; true when this call did, and the sales below it
+    // are still to be backfilled
+    public boolean openWatermark() {
+        return session().doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(OPEN_WATERMARK)) {
+                return statement.executeUpdate() == 1;
+            }
+        });
+    }
+
+    public Optional<Instant> firstSale() {
+        return session().doReturningWork(connection -> instant(connection, FIRST_SALE));
+    }
+
+    public Optional<Instant> lastSale() {
+        return session().doReturningWork(connection -> instant(connection, LAST_SALE));
+    }
+
+    private static String text(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    private static Optional<Instant> instant(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            Timestamp timestamp = resultSet.next() ? resultSet.getTimestamp(1) : null;
+            return Optional.ofNullable(timestamp).map(Timestamp::toInstant);
+        }
+    }
+
+    private Session session() {
+        return getEntityManager().unwrap(Session.class);
+    }
+
+    @Value(staticConstructor = "of")
+    static class Window {
+
+        Instant from;
+        Instant to;
+
+        private static Window empty(Instant at) {
+            return of(at, at);
+        }
+    }
+
+    /*
+     * Which source serves which part of [from, to); empty windows match no rows. rolledUp spans the whole hours, which
+     * the rollups serve together with the sales in it that are not rolled up yet.
+     */
+    @Value
+    static class Plan {
+
+        Window days;
+        Window headHours;
+        Window tailHours;
+        Window headRaw;
+        Window tailRaw;
+        Window rolledUp;
+
+        static Plan of(Instant from, Instant to) {
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("The range ends before it starts");
+            }
+            Instant firstHour = ceil(from, ChronoUnit.HOURS);
+            Instant lastHour = to.truncatedTo(ChronoUnit.HOURS);
+            if (!firstHour.isBefore(lastHour)) {
+                return new Plan(Window.empty(from), Window.empty(from), Window.empty(from), Window.of(from, to),
+                                Window.empty(to), Window.empty(from));
+            }
+            Window rolledUp = Window.of(firstHour, lastHour);
+            Instant firstDay = ceil(firstHour, ChronoUnit.DAYS);
+            Instant lastDay = lastHour.truncatedTo(ChronoUnit.DAYS);
+            if (!firstDay.isBefore(lastDay)) {
+                return new Plan(Window.empty(firstHour), Window.of(firstHour, lastHour), Window.empty(lastHour),
+                                Window.of(from, firstHour), Window.of(lastHour, to), rolledUp);
+            }
+            return new Plan(Window.of(firstDay, lastDay), Window.of(firstHour, firstDay), Window.of(lastDay, lastHour),
+                            Window.of(from, firstHour), Window.of(lastHour, to), rolledUp);
+        }
+
+        private static Instant ceil(Instant instant, ChronoUnit unit) {
+            Instant truncated = instant.truncatedTo(unit);
+            return truncated.equals(instant) ? instant : truncated.plus(1, unit);
+        }
+    }
+}
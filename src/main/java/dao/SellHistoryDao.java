@@ -1,5 +1,7 @@
 package dao;
 
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import entity.SellHistoryEntity;
 import jakarta.persistence.EntityManager;
@@ -7,14 +9,45 @@ import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static entity.QSellHistoryEntity.sellHistoryEntity;
 
 @Slf4j
 public class SellHistoryDao extends DaoBase<Long, SellHistoryEntity> {
+
+    private static final String SALES_BEFORE_DATE = """
+            select s from SellHistoryEntity s
+            join fetch s.itemId
+            where s.sellDate <= :date
+            order by s.id""";
+    private static final String SALE_FACTS = """
+            select i.brand, i.os, i.internal_memory, p.country_enum, isi.currency, s.sell_date, s.quantity,
+                   s.price * s.quantity
+            from market.sell_history s
+            join market.items i on i.item_id = s.item_id
+            join market.item_sales_information isi on isi.id = i.item_sales_information_id
+            left join market.personal_account p on p.id = s.user_id
+            where %s""";
+    private static final String SALE_FACTS_BELOW_XID = SALE_FACTS.formatted(
+            "s.sell_date >= ? and s.sell_date < ? and s.created_xid < ?::text::xid8");
+    private static final String SALE_FACTS_BETWEEN_XIDS = SALE_FACTS.formatted(
+            "s.created_xid >= ?::text::xid8 and s.created_xid < ?::text::xid8");
+    // Transactions below the snapshot's xmin have all ended, so no sale can still appear below it
+    private static final String HORIZON = "select pg_snapshot_xmin(pg_current_snapshot())::text";
+    private static final int SALE_FACTS_FETCH_SIZE = 1000;
+
     public SellHistoryDao(EntityManager entityManager) {
         super(entityManager, SellHistoryEntity.class);
     }
@@ -36,4 +69,74 @@ public class SellHistoryDao extends DaoBase<Long, SellHistoryEntity> {
                 .where(cb.lessThanOrEqualTo(sellHistoryEntity.get("sellDate"), date));
         return getEntityManager().createQuery(criteria).getResultList();
     }
+
+    // Full aggregation over the sales history, for the leaderboard reconciliation only
+    public Map<Long, Double> getSpendingByUser() {
+        NumberExpression<Double> spent = sellHistoryEntity.price.multiply(sellHistoryEntity.quantity).sum();
+        List<Tuple> rows = new JPAQuery<Tuple>(getEntityManager())
+                .select(sellHistoryEntity.user.id, spent)
+                .from(sellHistoryEntity)
+                .where(sellHistoryEntity.user.isNotNull())
+                .groupBy(sellHistoryEntity.user.id)
+                .fetch();
+        Map<Long, Double> totals = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> totals.put(row.get(sellHistoryEntity.user.id), row.get(spent)));
+        return totals;
+    }
+
+    // Oldest transaction that may still be running; every sale below it is committed or gone for good
+    public String horizon() {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(HORIZON);
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        });
+    }
+
+    // Flat sale rows with the phone and buyer attributes the sales cube slices by, read through a cursor
+    public void forEachSaleFact(Instant from, Instant to, String belowXid, Consumer<SaleFact> action) {
+        forEachSaleFact(SALE_FACTS_BELOW_XID, action, Timestamp.from(from), Timestamp.from(to), belowXid);
+    }
+
+    // The sales of the transactions in [fromXid, toXid), whatever their sell_date
+    public void forEachSaleFact(String fromXid, String toXid, Consumer<SaleFact> action) {
+        forEachSaleFact(SALE_FACTS_BETWEEN_XIDS, action, fromXid, toXid);
+    }
+
+    private void forEachSaleFact(String sql, Consumer<SaleFact> action, Object... parameters) {
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(SALE_FACTS_FETCH_SIZE);
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        action.accept(new SaleFact(resultSet.getString(1), resultSet.getString(2),
+                                                   resultSet.getString(3), resultSet.getString(4),
+                                                   resultSet.getString(5), resultSet.getTimestamp(6).toInstant(),
+                                                   resultSet.getInt(7), resultSet.getDouble(8)));
+                    }
+                }
+            }
+        });
+    }
+
+    // Exports and archival: the phone of every sale is fetched with it; close the stream, e.g. with try-with-resources
+    public Stream<SellHistoryEntity> streamAllBeforeDate(OffsetDateTime date) {
+        return stream(session -> session.createSelectionQuery(SALES_BEFORE_DATE, SellHistoryEntity.class)
+                .setParameter("date", date));
+    }
+
+    public void forEachBeforeDate(OffsetDateTime date, Consumer<SellHistoryEntity> action) {
+        try (Stream<SellHistoryEntity> sales = streamAllBeforeDate(date)) {
+            sales.forEach(action);
+        }
+    }
+
+    public record SaleFact(String brand, String os, String memory, String country, String currency,
+                           Instant sellDate, int quantity, double revenue) {
+    }
 }
@@ -0,0 +1,288 @@
+package dao;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import entity.StockMovementEntity;
+import entity.enums.StockMovementType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import exceptions.IncorrectQuantityException;
+import org.hibernate.Session;
+import utlis.jdbc.PropertiesUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static entity.QStockMovementEntity.stockMovementEntity;
+
+/*
+ * Stock of a phone. With stock.mode = ledger (the default) every change is a stock_movements insert and the
+ * balance is the snapshot plus the movements after it. With stock.mode = column the quantity column is the stock
+ * and changes go through ItemSalesInformationDao; no movements are written. Switching from ledger to column takes
+ * a final snapshot first, so that the column holds the whole balance, and switching back starts from an empty
+ * stock_snapshot table.
+ */
+public class StockMovementDao extends DaoBase<Long, StockMovementEntity> {
+
+    public static final boolean LEDGER = !"column".equalsIgnoreCase(
+            PropertiesUtil.getProperty("stock.mode", "ledger"));
+    // Snapshot (or the opening quantity of an item that has none yet) plus the movements it has not rolled in
+    private static final String BALANCE = LEDGER ? """
+            coalesce(s.quantity, isi.quantity)
+              + coalesce((select sum(m.quantity) from market.stock_movements m
+                          where m.item_id = i.item_id
+                            and m.created_xid >= coalesce(s.rolled_up_xid, '0'::xid8)), 0)"""
+            : "isi.quantity";
+    // Active checkout holds of the phone, taken on any node; an expired hold stops counting before its row is gone
+    private static final String HELD = """
+            coalesce((select sum(r.quantity) from market.stock_reservation r
+                      where r.item_id = i.item_id and r.expires_at > now()), 0)""";
+    private static final String AVAILABLE = "(%s) - %s".formatted(BALANCE, HELD);
+    private static final String SALES_INFORMATION_ID =
+            "select item_sales_information_id from market.items where item_id = ?";
+    private static final String SELECT_BALANCE = """
+            select %s
+            from market.items i
+            join market.item_sales_information isi on isi.id = i.item_sales_information_id
+            left join market.stock_snapshot s on s.item_id = i.item_id
+            where i.item_id = ?""".formatted(BALANCE);
+    private static final String SELECT_AVAILABLE = """
+            select %s
+            from market.items i
+            join market.item_sales_information isi on isi.id = i.item_sales_information_id
+            left join market.stock_snapshot s on s.item_id = i.item_id
+            where i.item_id = ?""".formatted(AVAILABLE);
+    private static final String INSERT_MOVEMENT = """
+            insert into market.stock_movements (item_id, movement_type, quantity, created_at)
+            values (?, ?, ?, clock_timestamp())""";
+    private static final String INSERT_COVERED_SALE = """
+            insert into market.stock_movements (item_id, movement_type, quantity, created_at)
+            select i.item_id, ?, ?, clock_timestamp()
+            from market.items i
+            join market.item_sales_information isi on isi.id = i.item_sales_information_id
+            left join market.stock_snapshot s on s.item_id = i.item_id
+            where i.item_id = ? and %s >= ?""".formatted(AVAILABLE);
+    private static final String SELECT_BALANCES = """
+            select i.item_id, %s
+            from market.items i
+            join market.item_sales_information isi on isi.id = i.item_sales_information_id
+            left join market.stock_snapshot s on s.item_id = i.item_id
+            where i.item_id = any(?)""".formatted(AVAILABLE);
+    // Advisory lock class of a phone's stock, shared with check_stock_balance() in market_repository.sql
+    public static final int ITEM_LOCK_CLASS = 7301;
+    private static final String LOCK_ITEM = "select 1 from pg_advisory_xact_lock(?, hashint8(?))";
+    // Row locks are taken above the sort, so in item_id order; no key update still lets the movement inserts of
+    // other transactions check their foreign key to the item
+    private static final String LOCK_ITEMS = """
+            select item_id from market.items where item_id = any(?) order by item_id for no key update""";
+
+    @Inject
+    public StockMovementDao(EntityManager entityManager) {
+        super(entityManager, StockMovementEntity.class);
+    }
+
+    /*
+     * A sale is a plain insert that only happens when the committed balance less the active holds covers it; sellers of one phone take
+     * no lock and rewrite no row. Two sales racing for the last units can both pass that check, so the deferred
+     * stock_movements_balance_check trigger checks the balance again at commit, one transaction per phone at a
+     * time, and fails the commit that would take it below the active holds. Plain JDBC on the session's connection, because
+     * ItemQuantityListener calls it from inside a flush where a Hibernate query would trigger another one.
+     */
+    public boolean appendSale(Long itemId, int quantity) {
+        if (!LEDGER) {
+            Long salesInformationId = salesInformationId(itemId);
+            return salesInformationId != null && column().decrementQuantity(salesInformationId, quantity);
+        }
+        return session().doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_COVERED_SALE)) {
+                statement.setString(1, StockMovementType.SALE.name());
+                statement.setInt(2, -quantity);
+                statement.setLong(3, itemId);
+                statement.setInt(4, quantity);
+                return statement.executeUpdate() == 1;
+            }
+        });
+    }
+
+    // Ascending item ids, so two orders that share phones always queue in the same order and cannot deadlock
+    public void lockItems(Collection<Long> itemIds) {
+        session().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(LOCK_ITEMS)) {
+                statement.setArray(1, connection.createArrayOf("bigint", itemIds.toArray()));
+                statement.executeQuery().close();
+            }
+        });
+    }
+
+    // Balances less the active holds; items that do not exist are absent from the result
+    public Map<Long, Long> balances(Collection<Long> itemIds) {
+        return session().doReturningWork(connection -> {
+            Map<Long, Long> balances = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_BALANCES)) {
+                statement.setArray(1, connection.createArrayOf("bigint", itemIds.toArray()));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        balances.put(resultSet.getLong(1), resultSet.getLong(2));
+                    }
+                }
+            }
+            return balances;
+        });
+    }
+
+    /*
+     * One JDBC batch; the caller is expected to hold the item locks and to have checked the balances. Rows go in
+     * ascending item order, the order in which their commit-time balance checks lock the phones.
+     */
+    public void appendSales(List<Map.Entry<Long, Integer>> quantitiesByItem) {
+        if (!LEDGER) {
+            // a sale outside the order that got in after the balances were read fails the whole order
+            for (Map.Entry<Long, Integer> sale : quantitiesByItem) {
+                if (!appendSale(sale.getKey(), sale.getValue())) {
+                    throw new IncorrectQuantityException();
+                }
+            }
+            return;
+        }
+        session().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_MOVEMENT)) {
+                for (Map.Entry<Long, Integer> sale : quantitiesByItem.stream()
+                        .sorted(Map.Entry.comparingByKey())
+                        .toList()) {
+                    statement.setLong(1, sale.getKey());
+                    statement.setString(2, StockMovementType.SALE.name());
+                    statement.setInt(3, -sale.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    public void append(Long itemId, StockMovementType movementType, int quantity) {
+        if (!LEDGER) {
+            Long salesInformationId = salesInformationId(itemId);
+            if (salesInformationId != null) {
+                column().adjustQuantity(salesInformationId, quantity);
+            }
+            return;
+        }
+        session().doWork(connection -> insert(connection, itemId, movementType, quantity));
+    }
+
+    // A counted quantity becomes the difference to the current balance, so the trail stays additive; the item lock
+    // keeps sales from committing between reading the balance and writing the correction
+    public int appendCorrection(Long itemId, long actualQuantity) {
+        if (!LEDGER) {
+            Long salesInformationId = salesInformationId(itemId);
+            if (salesInformationId == null) {
+                return 0;
+            }
+            int delta = Math.toIntExact(actualQuantity - column().lockQuantity(salesInformationId));
+            if (delta != 0) {
+                column().adjustQuantity(salesInformationId, delta);
+            }
+            return delta;
+        }
+        return session().doReturningWork(connection -> {
+            lock(connection, itemId);
+            int delta = Math.toIntExact(actualQuantity - balance(connection, itemId));
+            if (delta != 0) {
+                insert(connection, itemId, StockMovementType.CORRECTION, delta);
+            }
+            return delta;
+        });
+    }
+
+    public long balance(Long itemId) {
+        return session().doReturningWork(connection -> balance(connection, itemId));
+    }
+
+    // What a new sale or hold can still take: the balance less the active holds
+    public long available(Long itemId) {
+        return session().doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_AVAILABLE)) {
+                statement.setLong(1, itemId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getLong(1) : 0;
+                }
+            }
+        });
+    }
+
+    /*
+     * Locks the stock of a phone until the transaction ends, the way the commit-time balance check and the
+     * column-mode sale do; a hold checked against available() under it cannot race a sale.
+     */
+    public void lockStock(Long itemId) {
+        if (!LEDGER) {
+            Long salesInformationId = salesInformationId(itemId);
+            if (salesInformationId != null) {
+                column().lockQuantity(salesInformationId);
+            }
+            return;
+        }
+        session().doWork(connection -> lock(connection, itemId));
+    }
+
+    public List<StockMovementEntity> findByItem(Long itemId, long limit) {
+        return new JPAQuery<StockMovementEntity>(getEntityManager())
+                .select(stockMovementEntity)
+                .from(stockMovementEntity)
+                .where(stockMovementEntity.item.id.eq(itemId))
+                .orderBy(stockMovementEntity.id.desc())
+                .limit(limit)
+                .fetch();
+    }
+
+    private static void insert(Connection connection, Long itemId, StockMovementType movementType, int quantity)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_MOVEMENT)) {
+            statement.setLong(1, itemId);
+            statement.setString(2, movementType.name());
+            statement.setInt(3, quantity);
+            statement.executeUpdate();
+        }
+    }
+
+    private static long balance(Connection connection, Long itemId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_BALANCE)) {
+            statement.setLong(1, itemId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static void lock(Connection connection, Long itemId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(LOCK_ITEM)) {
+            statement.setInt(1, ITEM_LOCK_CLASS);
+            statement.setLong(2, itemId);
+            statement.executeQuery().close();
+        }
+    }
+
+    private Long salesInformationId(Long itemId) {
+        return session().doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SALES_INFORMATION_ID)) {
+                statement.setLong(1, itemId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getLong(1) : null;
+                }
+            }
+        });
+    }
+
+    private ItemSalesInformationDao column() {
+        return new ItemSalesInformationDao(getEntityManager());
+    }
+
+    private Session session() {
+        return getEntityManager().unwrap(Session.class);
+    }
+}
@@ -0,0 +1,53 @@
+package dao;
+
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import entity.StockReservationEntity;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static entity.QStockReservationEntity.stockReservationEntity;
+
+public class StockReservationDao extends DaoBase<Long, StockReservationEntity> {
+
+    @Inject
+    public StockReservationDao(EntityManager entityManager) {
+        super(entityManager, StockReservationEntity.class);
+    }
+
+    public List<StockReservationEntity> findActive(OffsetDateTime now, String nodeId) {
+        return new JPAQuery<StockReservationEntity>(getEntityManager())
+                .select(stockReservationEntity)
+                .from(stockReservationEntity)
+                .where(stockReservationEntity.expiresAt.after(now), stockReservationEntity.nodeId.eq(nodeId))
+                .fetch();
+    }
+
+    // Deleting the row is the claim: of a confirm racing an expiry, only one statement removes it
+    public boolean claim(Long id, OffsetDateTime now) {
+        return new JPADeleteClause(getEntityManager(), stockReservationEntity)
+                .where(stockReservationEntity.id.eq(id), stockReservationEntity.expiresAt.after(now))
+                .execute() == 1;
+    }
+
+    public boolean deleteById(Long id) {
+        return new JPADeleteClause(getEntityManager(), stockReservationEntity)
+                .where(stockReservationEntity.id.eq(id))
+                .execute() == 1;
+    }
+
+    public boolean deleteById(Long id, Long userId) {
+        return new JPADeleteClause(getEntityManager(), stockReservationEntity)
+                .where(stockReservationEntity.id.eq(id), stockReservationEntity.user.id.eq(userId))
+                .execute() == 1;
+    }
+
+    public long deleteExpired(OffsetDateTime now) {
+        return new JPADeleteClause(getEntityManager(), stockReservationEntity)
+                .where(stockReservationEntity.expiresAt.loe(now))
+                .execute();
+    }
+}
@@ -0,0 +1,110 @@
+package dao;
+
+import entity.StockSnapshotEntity;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class StockSnapshotDao extends DaoBase<Long, StockSnapshotEntity> {
+
+    // Advisory lock class of the roll-up; one node rolls up at a time, the others skip the run
+    private static final int ROLL_UP_LOCK_CLASS = 7302;
+    private static final String TRY_LOCK_ROLL_UP = "select pg_try_advisory_xact_lock(?, 0)";
+    private static final String WATERMARK = """
+            select rolled_up_xid::text from market.stock_snapshot order by rolled_up_xid desc limit 1""";
+    // Transactions below the snapshot's xmin have all ended, so no movement can still appear below it
+    private static final String HORIZON = "select pg_snapshot_xmin(pg_current_snapshot())::text";
+    // Items rolled up for the first time start from the quantity column, which was their stock until then; they
+    // open at the old watermark so that ROLL_UP adds the window to them like to every other snapshot
+    private static final String OPEN_SNAPSHOTS = """
+            insert into market.stock_snapshot (item_id, quantity, rolled_up_xid, taken_at)
+            select distinct m.item_id, isi.quantity, ?::text::xid8, now()
+            from market.stock_movements m
+            join market.items i on i.item_id = m.item_id
+            join market.item_sales_information isi on isi.id = i.item_sales_information_id
+            where m.created_xid >= ?::text::xid8 and m.created_xid < ?::text::xid8
+            on conflict (item_id) do nothing""";
+    private static final String ROLL_UP = """
+            update market.stock_snapshot s
+            set quantity = s.quantity + d.delta, rolled_up_xid = ?::text::xid8, taken_at = now()
+            from (select item_id, sum(quantity) as delta from market.stock_movements
+                  where created_xid >= ?::text::xid8 and created_xid < ?::text::xid8 group by item_id) d
+            where s.item_id = d.item_id and s.rolled_up_xid <= ?::text::xid8""";
+    // Keeps ItemSalesInformationEntity readers working: the column trails the ledger by one snapshot interval
+    private static final String SYNC_QUANTITY = """
+            update market.item_sales_information isi
+            set quantity = s.quantity
+            from market.items i
+            join market.stock_snapshot s on s.item_id = i.item_id
+            where isi.id = i.item_sales_information_id and s.rolled_up_xid = ?::text::xid8
+            returning isi.id""";
+
+    public StockSnapshotDao(EntityManager entityManager) {
+        super(entityManager, StockSnapshotEntity.class);
+    }
+
+    /*
+     * Rolls the movements of every transaction that has ended into the per-item snapshots and returns the ids of
+     * the item_sales_information rows whose quantity changed. The window runs from the last watermark up to the
+     * xmin of the current snapshot: a transaction below it has committed or rolled back, whatever it took to get
+     * there, and one above it is left for a later run however low its movement ids are. Roll-ups are serialized by
+     * an advisory lock, and a snapshot only takes a window that starts at or after its own watermark, so a window
+     * can never be added twice.
+     */
+    public List<Long> rollUp() {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            List<Long> salesInformationIds = new ArrayList<>();
+            if (!tryLockRollUp(connection)) {
+                return salesInformationIds;
+            }
+            String from = Objects.requireNonNullElse(single(connection, WATERMARK), "0");
+            String to = single(connection, HORIZON);
+            if (Long.parseLong(to) <= Long.parseLong(from)) {
+                return salesInformationIds;
+            }
+            execute(connection, OPEN_SNAPSHOTS, from, from, to);
+            execute(connection, ROLL_UP, to, from, to, from);
+            try (PreparedStatement statement = connection.prepareStatement(SYNC_QUANTITY)) {
+                statement.setString(1, to);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        salesInformationIds.add(resultSet.getLong(1));
+                    }
+                }
+            }
+            return salesInformationIds;
+        });
+    }
+
+    private static boolean tryLockRollUp(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(TRY_LOCK_ROLL_UP)) {
+            statement.setInt(1, ROLL_UP_LOCK_CLASS);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private static String single(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    private static void execute(Connection connection, String sql, String... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setString(i + 1, parameters[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dto;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+
+@Value(staticConstructor = "of")
+public class BatchReportDto {
+
+    long processed;
+    List<Duration> batchTimings;
+
+    public int getBatchCount() {
+        return batchTimings.size();
+    }
+
+    public Duration getTotalTime() {
+        return batchTimings.stream().reduce(Duration.ZERO, Duration::plus);
+    }
+
+    public Duration getSlowestBatch() {
+        return batchTimings.stream().max(Duration::compareTo).orElse(Duration.ZERO);
+    }
+}
@@ -0,0 +1,28 @@
+package dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder
+public class CacheRegionStatisticDto {
+
+    String region;
+    long entryCount;
+    long hitCount;
+    long missCount;
+    long evictionCount;
+    long uptimeMillis;
+
+    public double getHitRatio() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public double getEvictionsPerMinute() {
+        return uptimeMillis <= 0 ? 0 : evictionCount * 60_000.0 / uptimeMillis;
+    }
+}
@@ -0,0 +1,15 @@
+package dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CatalogChangeDto {
+
+    Long itemId;
+    boolean deleted;
+    // null when deleted
+    Long version;
+    ItemsInfoDto item;
+}
@@ -0,0 +1,16 @@
+package dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class CatalogChangesDto {
+
+    List<CatalogChangeDto> changes;
+    // pass as `since` on the next call; unchanged when there was nothing new
+    String token;
+    boolean hasMore;
+}
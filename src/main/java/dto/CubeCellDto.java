@@ -0,0 +1,16 @@
+package dto;
+
+import dto.filter.CubeDimension;
+import lombok.Value;
+
+import java.util.Map;
+
+@Value(staticConstructor = "of")
+public class CubeCellDto {
+
+    // one value per grouped dimension, in the order they were requested
+    Map<CubeDimension, String> key;
+    long units;
+    double revenue;
+    long sales;
+}
@@ -0,0 +1,21 @@
+package dto;
+
+import dto.filter.CubeDimension;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Values are the stored enum names, e.g. APPLE, ANDROID, RUSSIA, months as 2024-03
+@Value
+@Builder
+public class CubeQueryDto {
+
+    @Singular("filter")
+    Map<CubeDimension, Set<String>> filters;
+    @Singular("groupBy")
+    List<CubeDimension> groupBy;
+}
@@ -0,0 +1,20 @@
+package dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Map;
+
+// Facet name (as shown in the catalog) -> number of items matching the filter with that value selected
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder
+public class FacetCountsDto {
+
+    Map<String, Integer> brands;
+    Map<String, Integer> operatingSystems;
+    Map<String, Integer> internalMemories;
+    Map<String, Integer> rams;
+}
@@ -0,0 +1,10 @@
+package dto;
+
+import lombok.Value;
+
+@Value(staticConstructor = "of")
+public class ItemsCountDto {
+
+    long count;
+    boolean exact;
+}
@@ -0,0 +1,21 @@
+package dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder
+public class ItemsPageDto {
+
+    List<ItemsInfoDto> items;
+    String nextCursor;
+    Long totalCount;
+    boolean exactCount;
+    Long pageCount;
+    FacetCountsDto facets;
+}
@@ -0,0 +1,17 @@
+package dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value(staticConstructor = "of")
+public class MultiGetResultDto<K, E> {
+
+    // in the order of the requested ids, each id once
+    List<E> found;
+    List<K> missingIds;
+
+    public boolean isComplete() {
+        return missingIds.isEmpty();
+    }
+}
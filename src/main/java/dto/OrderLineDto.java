@@ -0,0 +1,10 @@
+package dto;
+
+import lombok.Value;
+
+@Value(staticConstructor = "of")
+public class OrderLineDto {
+
+    Long itemId;
+    Integer quantity;
+}
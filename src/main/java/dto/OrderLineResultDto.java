@@ -0,0 +1,19 @@
+package dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class OrderLineResultDto {
+
+    public enum Status {
+        PLACED, INSUFFICIENT_STOCK, UNKNOWN_ITEM, INVALID_QUANTITY
+    }
+
+    Long itemId;
+    Integer quantity;
+    Status status;
+    // sell_history id of a placed line
+    Long sellId;
+}
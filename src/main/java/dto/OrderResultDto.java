@@ -0,0 +1,15 @@
+package dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value(staticConstructor = "of")
+public class OrderResultDto {
+
+    List<OrderLineResultDto> lines;
+
+    public long getPlacedCount() {
+        return lines.stream().filter(line -> line.getStatus() == OrderLineResultDto.Status.PLACED).count();
+    }
+}
@@ -0,0 +1,12 @@
+package dto;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value(staticConstructor = "of")
+public class PricePointDto {
+
+    Instant at;
+    double price;
+}
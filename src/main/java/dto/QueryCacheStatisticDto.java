@@ -0,0 +1,17 @@
+package dto;
+
+import lombok.Value;
+
+@Value(staticConstructor = "of")
+public class QueryCacheStatisticDto {
+
+    String query;
+    long hitCount;
+    long missCount;
+    long putCount;
+
+    public double getHitRatio() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+}
@@ -0,0 +1,16 @@
+package dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.OffsetDateTime;
+
+@Value
+@Builder
+public class ReservationDto {
+
+    Long id;
+    Long itemId;
+    Integer quantity;
+    OffsetDateTime expiresAt;
+}
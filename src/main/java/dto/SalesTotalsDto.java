@@ -0,0 +1,18 @@
+package dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class SalesTotalsDto {
+
+    // null unless grouped by item
+    Long itemId;
+    // null when grouped by currency only
+    String brand;
+    String currency;
+    long units;
+    double revenue;
+    long orderCount;
+}
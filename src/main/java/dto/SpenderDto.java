@@ -0,0 +1,10 @@
+package dto;
+
+import lombok.Value;
+
+@Value(staticConstructor = "of")
+public class SpenderDto {
+
+    Long userId;
+    double totalSpent;
+}
@@ -11,4 +11,8 @@ public class AttributesFilter {
     Attributes.OperatingSystemEnum os;
     Attributes.InternalMemoryEnum internalMemory;
     Attributes.RamEnum ram;
+
+    public boolean isEmpty() {
+        return brand == null && os == null && internalMemory == null && ram == null;
+    }
 }
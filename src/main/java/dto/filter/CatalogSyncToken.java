@@ -0,0 +1,39 @@
+package dto.filter;
+
+import lombok.Value;
+
+import java.util.Base64;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Opaque catalog position for delta sync: transaction id and change id of the last change the client has seen
+@Value(staticConstructor = "of")
+public class CatalogSyncToken {
+
+    public static final CatalogSyncToken START = CatalogSyncToken.of(0L, 0L);
+    private static final String SEPARATOR = ":";
+
+    long transactionId;
+    long changeId;
+
+    public String encode() {
+        String raw = transactionId + SEPARATOR + changeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(UTF_8));
+    }
+
+    public static Optional<CatalogSyncToken> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.of(START);
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), UTF_8).split(SEPARATOR, 2);
+            if (parts.length != 2) {
+                return Optional.empty();
+            }
+            return Optional.of(CatalogSyncToken.of(Long.parseLong(parts[0]), Long.parseLong(parts[1])));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
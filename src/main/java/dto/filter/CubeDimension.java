@@ -0,0 +1,14 @@
+package dto.filter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum CubeDimension {
+    BRAND, OS, MEMORY, COUNTRY, CURRENCY, MONTH;
+
+    public static Optional<CubeDimension> from(String dimension) {
+        return Arrays.stream(values())
+                .filter(value -> value.name().equalsIgnoreCase(dimension))
+                .findFirst();
+    }
+}
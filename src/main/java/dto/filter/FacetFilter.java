@@ -0,0 +1,22 @@
+package dto.filter;
+
+import entity.enums.Attributes;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.Set;
+
+// Multi-select catalog filter: values inside one attribute are OR-ed, attributes are AND-ed
+@Value
+@Builder
+public class FacetFilter {
+    @Singular
+    Set<Attributes.BrandEnum> brands;
+    @Singular
+    Set<Attributes.OperatingSystemEnum> operatingSystems;
+    @Singular
+    Set<Attributes.InternalMemoryEnum> internalMemories;
+    @Singular
+    Set<Attributes.RamEnum> rams;
+}
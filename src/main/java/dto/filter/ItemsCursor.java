@@ -0,0 +1,58 @@
+package dto.filter;
+
+import lombok.Value;
+
+import java.util.Base64;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/*
+ * Opaque "after" cursor for keyset pagination: sort, tie-breaker id of the last row and its sort key. The
+ * tie-breaker is item_sales_information.id for PRICE, so the (price, id) index serves the seek, and item_id
+ * otherwise. A PRICE cursor has an empty key when the last row had no price.
+ */
+@Value
+public class ItemsCursor {
+
+    private static final String SEPARATOR = ":";
+
+    ItemsSort sort;
+    Long id;
+    String key;
+
+    public static ItemsCursor of(ItemsSort sort, Long id, Object key) {
+        return new ItemsCursor(sort, id, key == null ? "" : key.toString());
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, sort.name(), id.toString(), key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(UTF_8));
+    }
+
+    public static Optional<ItemsCursor> decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), UTF_8).split(SEPARATOR, 3);
+            if (parts.length != 3) {
+                return Optional.empty();
+            }
+            Long id = Long.valueOf(parts[1]);
+            return ItemsSort.from(parts[0])
+                    .filter(sort -> keyFits(sort, parts[2]))
+                    .map(sort -> new ItemsCursor(sort, id, parts[2]));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean keyFits(ItemsSort sort, String key) {
+        return switch (sort) {
+            case PRICE -> key.isEmpty() || Double.isFinite(Double.parseDouble(key));
+            case MODEL -> true;
+            case NEWEST -> key.isEmpty();
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package dto.filter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum ItemsSort {
+    PRICE, MODEL, NEWEST;
+
+    public static Optional<ItemsSort> from(String sort) {
+        return Arrays.stream(values())
+                .filter(value -> value.name().equalsIgnoreCase(sort))
+                .findFirst();
+    }
+}
@@ -0,0 +1,15 @@
+package dto.filter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+// Revenue is never summed across currencies, so every grouping keeps the currency
+public enum SalesGroup {
+    ITEM, BRAND, CURRENCY;
+
+    public static Optional<SalesGroup> from(String group) {
+        return Arrays.stream(values())
+                .filter(value -> value.name().equalsIgnoreCase(group))
+                .findFirst();
+    }
+}
@@ -4,6 +4,9 @@ import java.io.Serializable;
 
 public interface BaseEntity<T extends Serializable> {
 
+    // Ids a node takes from a sequence in one call (pooled-lo); the sequences increment by the same step
+    int ID_BLOCK_SIZE = 50;
+
     void setId(T id);
 
     T getId();
@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.AuditTable;
 import org.hibernate.envers.Audited;
 
@@ -14,13 +16,17 @@ import org.hibernate.envers.Audited;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity(name = "item_sales_information")
-@Table(schema = "market")
+@Table(schema = "market", indexes = {
+        @Index(name = "item_sales_information_price_id_idx", columnList = "price, id")
+})
 @Audited
 @AuditTable(value = "item_sales_information_AUD", schema = "history", catalog = "market_repository")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ItemSalesInformationEntity implements BaseEntity<Long> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_sales_information_seq")
+    @SequenceGenerator(name = "item_sales_information_seq", sequenceName = "item_sales_information_id_seq", schema = "market", allocationSize = ID_BLOCK_SIZE)
     private Long id;
 
 //    @OneToOne
@@ -34,7 +40,9 @@ public class ItemSalesInformationEntity implements BaseEntity<Long> {
     @Enumerated(EnumType.STRING)
     private CurrencyEnum currency;
 
-    @Column(name = "quantity")
+    // Written on insert as the opening stock, afterwards by StockSnapshotter from the stock_movements ledger,
+    // or by ItemSalesInformationDao when stock.mode = column
+    @Column(name = "quantity", updatable = false)
     private Integer quantity;
 
 }
@@ -2,6 +2,7 @@ package entity;
 
 import entity.enums.Attributes;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.*;
 import lombok.*;
@@ -40,7 +41,9 @@ import java.util.List;
 @EqualsAndHashCode(of = {"model"})
 @ToString(exclude = {"phoneOrders", "itemSalesInformation"})
 @Entity(name = "items")
-@Table(schema = "market")
+@Table(schema = "market", indexes = {
+        @Index(name = "items_model_item_id_idx", columnList = "model, item_id")
+})
 @DynamicUpdate
 @Audited
 @AuditTable(value = "items_AUD", schema = "history", catalog = "market_repository")
@@ -48,7 +51,8 @@ import java.util.List;
 public class ItemsEntity implements BaseEntity<Long> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_item_id_seq", schema = "market", allocationSize = ID_BLOCK_SIZE)
     @Column(name = "item_id")
     private Long id;
 
@@ -86,6 +90,7 @@ public class ItemsEntity implements BaseEntity<Long> {
     @Builder.Default
     @OneToMany(mappedBy = "itemId", fetch = FetchType.LAZY)
     @Cascade(org.hibernate.annotations.CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
     // При вызове session.persist(ItemEntity) также сохранятся все связанные sellHistoryEntity
     private List<SellHistoryEntity> phoneOrders = new ArrayList<>();
 
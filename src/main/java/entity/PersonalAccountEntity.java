@@ -5,6 +5,8 @@ import entity.enums.DiscountEnum;
 import entity.enums.GenderEnum;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.ColumnTransformer;
 import validator.CheckBirthday;
 import validator.CreateUserGroup;
@@ -39,10 +41,12 @@ import java.util.List;
 @Table(name = "personal_account", schema = "market", indexes = {
         @Index(name = "emailIndex", columnList = "email", unique = true)
 })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class PersonalAccountEntity implements BaseEntity<Long> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "personal_account_seq")
+    @SequenceGenerator(name = "personal_account_seq", sequenceName = "personal_account_id_seq", schema = "market", allocationSize = ID_BLOCK_SIZE)
     private Long id;
     @UniqueEmail(groups = CreateUserGroup.class)
     private String email;
@@ -71,6 +75,7 @@ public class PersonalAccountEntity implements BaseEntity<Long> {
     private boolean confirmedAccount;
     @Builder.Default
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<SellHistoryEntity> phonePurchases = new ArrayList<>();
     @Builder.Default
     @ElementCollection(fetch = FetchType.LAZY)
@@ -0,0 +1,36 @@
+package entity;
+
+import entity.enums.Attributes;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+// Sales of one phone in one hour or day; written only by SalesRollupDao with plain SQL upserts
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Immutable
+@Entity(name = "sales_rollup")
+@Table(schema = "market")
+public class SalesRollupEntity implements BaseEntity<SalesRollupId> {
+
+    @EmbeddedId
+    private SalesRollupId id;
+
+    @Column(name = "brand")
+    @Enumerated(EnumType.STRING)
+    private Attributes.BrandEnum brand;
+
+    @Column(name = "units", nullable = false)
+    private Long units;
+
+    @Column(name = "revenue", nullable = false)
+    private Double revenue;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+}
@@ -0,0 +1,33 @@
+package entity;
+
+import entity.enums.CurrencyEnum;
+import entity.enums.RollupGranularity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class SalesRollupId implements Serializable {
+
+    @Column(name = "granularity", length = 8)
+    @Enumerated(EnumType.STRING)
+    private RollupGranularity granularity;
+
+    // UTC start of the hour or day
+    @Column(name = "bucket_start")
+    private OffsetDateTime bucketStart;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "currency")
+    @Enumerated(EnumType.STRING)
+    private CurrencyEnum currency;
+}
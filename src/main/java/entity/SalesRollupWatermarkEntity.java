@@ -0,0 +1,24 @@
+package entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnTransformer;
+
+// The rollups hold every sale of the transactions below rolledUpXid; later ones are read from sell_history
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity(name = "sales_rollup_watermark")
+@Table(schema = "market")
+public class SalesRollupWatermarkEntity implements BaseEntity<Long> {
+
+    @Id
+    @Builder.Default
+    private Long id = 1L;
+
+    // xid8 has no JDBC type; it travels as its text form
+    @Column(name = "rolled_up_xid", nullable = false, columnDefinition = "xid8")
+    @ColumnTransformer(read = "rolled_up_xid::text", write = "?::xid8")
+    private String rolledUpXid;
+}
@@ -2,6 +2,9 @@ package entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnTransformer;
 import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.FetchProfile;
 import org.hibernate.envers.AuditTable;
@@ -27,12 +30,17 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @Builder
 @EqualsAndHashCode(of = {"itemId", "sellDate"})
-@Table(name = "sell_history", schema = "market", catalog = "market_repository")
+@Table(name = "sell_history", schema = "market", catalog = "market_repository", indexes = {
+        @Index(name = "sell_history_sell_date_idx", columnList = "sell_date"),
+        @Index(name = "sell_history_created_xid_idx", columnList = "created_xid")
+})
 @Audited
 @AuditTable(value = "sell_history_AUD", schema = "history", catalog = "market_repository")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class SellHistoryEntity implements BaseEntity<Long>, Cloneable {
 
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sell_history_seq")
+    @SequenceGenerator(name = "sell_history_seq", sequenceName = "sell_history_sell_id_seq", schema = "market", allocationSize = ID_BLOCK_SIZE)
     @Id
     @Column(name = "sell_id")
     private Long id;
@@ -57,6 +65,18 @@ public class SellHistoryEntity implements BaseEntity<Long>, Cloneable {
     @Column(name = "price", nullable = false)
     private Double price;
 
+    // Transaction that wrote the sale, set by the column default; the sales rollups and the cube window on it
+    @Column(name = "created_xid", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "xid8 default pg_current_xact_id()")
+    @ColumnTransformer(read = "created_xid::text")
+    @NotAudited
+    private String createdXid;
+
+    // set when the stock movement was already written for this line (batched order placement)
+    @Transient
+    @Builder.Default
+    private boolean stockRecorded = false;
+
     @Override
     public SellHistoryEntity clone()  {
         try {
@@ -0,0 +1,51 @@
+package entity;
+
+import entity.enums.StockMovementType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnTransformer;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+
+// One signed change of an item's stock; rows are only ever inserted
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "id")
+@ToString(exclude = "item")
+@Immutable
+@Entity(name = "stock_movements")
+@Table(schema = "market", indexes = {
+        @Index(name = "stock_movements_item_id_id_idx", columnList = "item_id, id"),
+        @Index(name = "stock_movements_item_id_xid_idx", columnList = "item_id, created_xid"),
+        @Index(name = "stock_movements_xid_idx", columnList = "created_xid")
+})
+public class StockMovementEntity implements BaseEntity<Long> {
+
+    // stays IDENTITY: movements are written with plain SQL that relies on the column default
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "item_id", referencedColumnName = "item_id")
+    private ItemsEntity item;
+
+    @Column(name = "movement_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StockMovementType movementType;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    // Transaction that wrote the movement, set by the column default; the snapshot roll-up windows on it
+    @Column(name = "created_xid", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "xid8 default pg_current_xact_id()")
+    @ColumnTransformer(read = "created_xid::text")
+    private String createdXid;
+}
@@ -0,0 +1,44 @@
+package entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+// A checkout hold on item stock. Every node subtracts the active rows from the stock; only the node that took a hold
+// runs its expiry
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "id")
+@ToString(exclude = {"item", "user"})
+@Entity(name = "stock_reservation")
+@Table(schema = "market", indexes = {
+        @Index(name = "stock_reservation_expires_at_idx", columnList = "expires_at"),
+        @Index(name = "stock_reservation_item_id_idx", columnList = "item_id")
+})
+public class StockReservationEntity implements BaseEntity<Long> {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservation_seq")
+    @SequenceGenerator(name = "stock_reservation_seq", sequenceName = "stock_reservation_id_seq", schema = "market", allocationSize = ID_BLOCK_SIZE)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "item_id", referencedColumnName = "item_id")
+    private ItemsEntity item;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private PersonalAccountEntity user;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    @Column(name = "node_id", nullable = false, length = 128)
+    private String nodeId;
+}
@@ -0,0 +1,32 @@
+package entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnTransformer;
+
+import java.time.OffsetDateTime;
+
+// Balance of an item with every movement of the transactions below rolledUpXid rolled in
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity(name = "stock_snapshot")
+@Table(schema = "market")
+public class StockSnapshotEntity implements BaseEntity<Long> {
+
+    @Id
+    @Column(name = "item_id")
+    private Long id;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    // xid8 has no JDBC type; it travels as its text form
+    @Column(name = "rolled_up_xid", nullable = false, columnDefinition = "xid8")
+    @ColumnTransformer(read = "rolled_up_xid::text", write = "?::xid8")
+    private String rolledUpXid;
+
+    @Column(name = "taken_at", nullable = false)
+    private OffsetDateTime takenAt;
+}
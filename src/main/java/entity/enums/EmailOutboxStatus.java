@@ -0,0 +1,5 @@
+package entity.enums;
+
+public enum EmailOutboxStatus {
+	PENDING, SENT, FAILED
+}
@@ -0,0 +1,5 @@
+package entity.enums;
+
+public enum StockMovementType {
+	SALE, RESTOCK, CORRECTION
+}
@@ -0,0 +1,11 @@
+package exceptions;
+
+public class ReservationExpiredException extends RuntimeException {
+
+    private final static String errorMessage = "Reservation %d has expired or was already used";
+
+    public ReservationExpiredException(Long reservationId) {
+        super(errorMessage.formatted(reservationId));
+    }
+
+}
@@ -0,0 +1,22 @@
+package index;
+
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+
+import java.util.Collection;
+
+// In-memory view of the catalog kept in sync by listener.CatalogIndexListener
+public interface CatalogIndex {
+
+    void rebuild(Collection<ItemsEntity> items);
+
+    void index(ItemsEntity item);
+
+    void remove(Long itemId);
+
+    default void updateSalesInformation(ItemSalesInformationEntity salesInformation) {
+    }
+
+    default void recordSale(Long itemId, long quantity) {
+    }
+}
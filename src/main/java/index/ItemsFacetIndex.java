@@ -0,0 +1,264 @@
+package index;
+
+import dto.FacetCountsDto;
+import dto.ItemsInfoDto;
+import dto.ItemsPageDto;
+import dto.filter.FacetFilter;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import entity.enums.Attributes;
+import mapper.ItemsInfoMapper;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// One compressed bitmap of item ids per attribute value; filters and facet counts never touch the database
+public class ItemsFacetIndex implements CatalogIndex {
+
+    public static final ItemsFacetIndex INSTANCE = new ItemsFacetIndex();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Facet<Attributes.BrandEnum> brands =
+            new Facet<>(Attributes.BrandEnum.class, Attributes.BrandEnum::getBrand);
+    private final Facet<Attributes.OperatingSystemEnum> operatingSystems =
+            new Facet<>(Attributes.OperatingSystemEnum.class, Attributes.OperatingSystemEnum::getOs);
+    private final Facet<Attributes.InternalMemoryEnum> internalMemories =
+            new Facet<>(Attributes.InternalMemoryEnum.class, Attributes.InternalMemoryEnum::getInternalMemory);
+    private final Facet<Attributes.RamEnum> rams =
+            new Facet<>(Attributes.RamEnum.class, Attributes.RamEnum::getRam);
+    private final Map<Integer, IndexedItem> items = new HashMap<>();
+    private final Map<Long, Integer> itemsBySalesInformation = new HashMap<>();
+
+    ItemsFacetIndex() {
+    }
+
+    @Override
+    public void rebuild(Collection<ItemsEntity> entities) {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            brands.clear();
+            operatingSystems.clear();
+            internalMemories.clear();
+            rams.clear();
+            items.clear();
+            itemsBySalesInformation.clear();
+            entities.forEach(this::add);
+            all.runOptimize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(ItemsEntity item) {
+        lock.writeLock().lock();
+        try {
+            removeById(toIndexId(item.getId()));
+            add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeById(toIndexId(itemId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateSalesInformation(ItemSalesInformationEntity salesInformation) {
+        lock.writeLock().lock();
+        try {
+            Integer id = itemsBySalesInformation.get(salesInformation.getId());
+            IndexedItem indexed = id == null ? null : items.get(id);
+            if (indexed == null) {
+                return;
+            }
+            ItemsInfoDto updated = indexed.dto().toBuilder()
+                    .price(salesInformation.getPrice() == null ? null : salesInformation.getPrice().toString())
+                    .currency(salesInformation.getCurrency() == null ? null : salesInformation.getCurrency().name())
+                    .build();
+            items.put(id, new IndexedItem(indexed.salesInformationId(), indexed.brand(),
+                                          indexed.os(), indexed.internalMemory(), indexed.ram(), updated));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ItemsPageDto find(FacetFilter filter, long page, long limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matched = match(filter, null);
+            long total = matched.getLongCardinality();
+            return ItemsPageDto.builder()
+                    .items(slice(matched, (page - 1) * limit, limit))
+                    .totalCount(total)
+                    .exactCount(true)
+                    .pageCount(limit <= 0 ? 0 : (total + limit - 1) / limit)
+                    .facets(facetCounts(filter))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(FacetFilter filter) {
+        lock.readLock().lock();
+        try {
+            return match(filter, null).getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Counts for a facet ignore that facet's own selection, so picking "Samsung" keeps "Apple (N)" visible
+    public FacetCountsDto facetCounts(FacetFilter filter) {
+        lock.readLock().lock();
+        try {
+            return FacetCountsDto.builder()
+                    .brands(brands.counts(match(filter, brands)))
+                    .operatingSystems(operatingSystems.counts(match(filter, operatingSystems)))
+                    .internalMemories(internalMemories.counts(match(filter, internalMemories)))
+                    .rams(rams.counts(match(filter, rams)))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap match(FacetFilter filter, Facet<?> skipped) {
+        RoaringBitmap result = all;
+        result = and(result, skipped == brands ? null : brands.union(filter.getBrands()));
+        result = and(result, skipped == operatingSystems ? null : operatingSystems.union(filter.getOperatingSystems()));
+        result = and(result, skipped == internalMemories ? null : internalMemories.union(filter.getInternalMemories()));
+        result = and(result, skipped == rams ? null : rams.union(filter.getRams()));
+        return result;
+    }
+
+    private static RoaringBitmap and(RoaringBitmap result, RoaringBitmap selected) {
+        return selected == null ? result : RoaringBitmap.and(result, selected);
+    }
+
+    private List<ItemsInfoDto> slice(RoaringBitmap matched, long offset, long limit) {
+        List<ItemsInfoDto> page = new ArrayList<>();
+        if (offset < 0 || limit <= 0 || offset >= matched.getLongCardinality()) {
+            return page;
+        }
+        PeekableIntIterator iterator = matched.getIntIterator();
+        iterator.advanceIfNeeded(matched.select((int) offset));
+        while (iterator.hasNext() && page.size() < limit) {
+            page.add(items.get(iterator.next()).dto());
+        }
+        return page;
+    }
+
+    private void add(ItemsEntity item) {
+        int id = toIndexId(item.getId());
+        all.add(id);
+        brands.add(item.getBrand(), id);
+        operatingSystems.add(item.getOs(), id);
+        internalMemories.add(item.getInternalMemory(), id);
+        rams.add(item.getRam(), id);
+        Long salesInformationId = item.getItemSalesInformation() == null ? null : item.getItemSalesInformation().getId();
+        if (salesInformationId != null) {
+            itemsBySalesInformation.put(salesInformationId, id);
+        }
+        items.put(id, new IndexedItem(salesInformationId, item.getBrand(), item.getOs(),
+                                      item.getInternalMemory(), item.getRam(), ItemsInfoMapper.INSTANCE.toDto(item)));
+    }
+
+    private void removeById(int id) {
+        IndexedItem indexed = items.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        all.remove(id);
+        brands.remove(indexed.brand(), id);
+        operatingSystems.remove(indexed.os(), id);
+        internalMemories.remove(indexed.internalMemory(), id);
+        rams.remove(indexed.ram(), id);
+        if (indexed.salesInformationId() != null) {
+            itemsBySalesInformation.remove(indexed.salesInformationId());
+        }
+    }
+
+    private static int toIndexId(Long id) {
+        return Math.toIntExact(id);
+    }
+
+    private record IndexedItem(Long salesInformationId, Attributes.BrandEnum brand,
+                               Attributes.OperatingSystemEnum os, Attributes.InternalMemoryEnum internalMemory,
+                               Attributes.RamEnum ram, ItemsInfoDto dto) {
+    }
+
+    private static class Facet<E extends Enum<E>> {
+
+        private final Class<E> type;
+        private final Map<E, RoaringBitmap> bitmaps;
+        private final Function<E, String> label;
+
+        private Facet(Class<E> type, Function<E, String> label) {
+            this.type = type;
+            this.bitmaps = new EnumMap<>(type);
+            this.label = label;
+        }
+
+        private void add(E value, int id) {
+            if (value != null) {
+                bitmaps.computeIfAbsent(value, v -> new RoaringBitmap()).add(id);
+            }
+        }
+
+        private void remove(E value, int id) {
+            if (value != null && bitmaps.containsKey(value)) {
+                bitmaps.get(value).remove(id);
+            }
+        }
+
+        private void clear() {
+            bitmaps.clear();
+        }
+
+        // null means "no constraint on this facet"
+        private RoaringBitmap union(Set<E> selected) {
+            if (selected == null || selected.isEmpty()) {
+                return null;
+            }
+            RoaringBitmap union = new RoaringBitmap();
+            for (E value : selected) {
+                RoaringBitmap bitmap = bitmaps.get(value);
+                if (bitmap != null) {
+                    union.or(bitmap);
+                }
+            }
+            return union;
+        }
+
+        private Map<String, Integer> counts(RoaringBitmap matched) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (E value : type.getEnumConstants()) {
+                RoaringBitmap bitmap = bitmaps.get(value);
+                counts.put(label.apply(value), bitmap == null ? 0 : RoaringBitmap.andCardinality(bitmap, matched));
+            }
+            return counts;
+        }
+    }
+}
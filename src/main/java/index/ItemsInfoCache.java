@@ -0,0 +1,108 @@
+package index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dto.CacheRegionStatisticDto;
+import dto.ItemsInfoDto;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import mapper.ItemsInfoMapper;
+import utlis.jdbc.PropertiesUtil;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+// On-heap L1 in front of the second level cache. Caffeine's W-TinyLFU admission keeps popular phones
+// when a crawler walks the whole catalog once; the TTL bounds staleness from writes on other nodes
+public class ItemsInfoCache implements CatalogIndex {
+
+    public static final String REGION = "l1.items.info";
+    public static final ItemsInfoCache INSTANCE = new ItemsInfoCache(
+            PropertiesUtil.getLongProperty("items.l1.cache.max.size", 10_000L),
+            Duration.ofSeconds(PropertiesUtil.getLongProperty("items.l1.cache.ttl.seconds", 600L)),
+            ForkJoinPool.commonPool());
+
+    private final Cache<Long, CachedItem> cache;
+    // never shrinks: at most one pair per item, and stale pairs only cause a harmless extra invalidation
+    private final Map<Long, Long> itemsBySalesInformation = new ConcurrentHashMap<>();
+    private final long createdAt = System.currentTimeMillis();
+
+    ItemsInfoCache(long maxSize, Duration ttl, Executor maintenance) {
+        this.cache = Caffeine.newBuilder()
+                .executor(maintenance)
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // The loader runs inside the cache's compute, so an invalidation racing with it waits and then drops the result
+    public ItemsInfoDto get(Long id, Function<Long, ItemsEntity> loader) {
+        return cache.get(id, key -> {
+            ItemsEntity item = loader.apply(key);
+            return track(CachedItem.of(item), key);
+        }).dto();
+    }
+
+    @Override
+    public void rebuild(Collection<ItemsEntity> items) {
+        cache.invalidateAll();
+    }
+
+    // Every committed update bumps the item's @Version, so the cached copy is outdated by definition
+    @Override
+    public void index(ItemsEntity item) {
+        cache.invalidate(item.getId());
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        cache.invalidate(itemId);
+    }
+
+    @Override
+    public void updateSalesInformation(ItemSalesInformationEntity salesInformation) {
+        Long itemId = itemsBySalesInformation.get(salesInformation.getId());
+        if (itemId != null) {
+            cache.invalidate(itemId);
+        }
+    }
+
+    public CacheRegionStatisticDto statistics() {
+        CacheStats stats = cache.stats();
+        return CacheRegionStatisticDto.builder()
+                .region(REGION)
+                .entryCount(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .evictionCount(stats.evictionCount())
+                .uptimeMillis(System.currentTimeMillis() - createdAt)
+                .build();
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private CachedItem track(CachedItem item, Long id) {
+        if (item.salesInformationId() != null) {
+            itemsBySalesInformation.put(item.salesInformationId(), id);
+        }
+        return item;
+    }
+
+    private record CachedItem(Long salesInformationId, ItemsInfoDto dto) {
+
+        private static CachedItem of(ItemsEntity item) {
+            ItemSalesInformationEntity salesInformation = item.getItemSalesInformation();
+            return new CachedItem(salesInformation == null ? null : salesInformation.getId(),
+                                  ItemsInfoMapper.INSTANCE.toDto(item));
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package index;
+
+import dto.ItemsInfoDto;
+import dto.ItemsPageDto;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import mapper.ItemsInfoMapper;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Inverted index over model, color and attribute display names with prefix and typo tolerant matching
+public class ItemsSearchIndex implements CatalogIndex {
+
+    public static final ItemsSearchIndex INSTANCE = new ItemsSearchIndex();
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+|(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})");
+    private static final Set<String> STOP_WORDS = Set.of("gb", "tb");
+    private static final int MODEL_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int ATTRIBUTE_WEIGHT = 1;
+    private static final double EXACT_MATCH = 1.0;
+    private static final double PREFIX_MATCH = 0.7;
+    private static final double TYPO_MATCH = 0.5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> item id -> best field weight of the term in that item
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    private final Map<Integer, Map<String, Integer>> terms = new HashMap<>();
+    private final Map<Integer, ItemsInfoDto> documents = new HashMap<>();
+    private final Map<Long, Integer> itemsBySalesInformation = new HashMap<>();
+
+    ItemsSearchIndex() {
+    }
+
+    @Override
+    public void rebuild(Collection<ItemsEntity> items) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            terms.clear();
+            documents.clear();
+            itemsBySalesInformation.clear();
+            items.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(ItemsEntity item) {
+        lock.writeLock().lock();
+        try {
+            removeById(Math.toIntExact(item.getId()));
+            add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeById(Math.toIntExact(itemId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateSalesInformation(ItemSalesInformationEntity salesInformation) {
+        lock.writeLock().lock();
+        try {
+            Integer id = itemsBySalesInformation.get(salesInformation.getId());
+            if (id != null && documents.containsKey(id)) {
+                documents.put(id, documents.get(id).toBuilder()
+                        .price(salesInformation.getPrice() == null ? null : salesInformation.getPrice().toString())
+                        .currency(salesInformation.getCurrency() == null ? null : salesInformation.getCurrency().name())
+                        .build());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every query token has to match; the score sums the best match of each token weighted by field and rarity
+    public ItemsPageDto search(String query, long page, long limit) {
+        List<String> tokens = tokenize(query);
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = null;
+            for (String token : tokens) {
+                Map<Integer, Double> tokenScores = score(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            Map<Integer, Double> matched = scores == null ? Map.of() : scores;
+            List<ItemsInfoDto> items = matched.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder())
+                                    .thenComparing(Map.Entry.comparingByKey()))
+                    .skip(Math.max(0, (page - 1) * limit))
+                    .limit(Math.max(0, limit))
+                    .map(entry -> documents.get(entry.getKey()))
+                    .toList();
+            long total = matched.size();
+            return ItemsPageDto.builder()
+                    .items(items)
+                    .totalCount(total)
+                    .exactCount(true)
+                    .pageCount(limit <= 0 ? 0 : (total + limit - 1) / limit)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATORS.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty() && !STOP_WORDS.contains(token))
+                .distinct()
+                .toList();
+    }
+
+    private Map<Integer, Double> score(String token) {
+        Map<Integer, Double> scores = new HashMap<>();
+        collect(scores, token, EXACT_MATCH);
+        for (String term : postings.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+            collect(scores, term, PREFIX_MATCH);
+        }
+        int maxEdits = token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+        if (maxEdits > 0) {
+            for (String term : postings.keySet()) {
+                if (Math.abs(term.length() - token.length()) <= maxEdits && !term.startsWith(token)
+                        && editDistance(token, term) <= maxEdits) {
+                    collect(scores, term, TYPO_MATCH);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void collect(Map<Integer, Double> scores, String term, double match) {
+        Map<Integer, Integer> posting = postings.get(term);
+        if (posting == null) {
+            return;
+        }
+        double rarity = Math.log(1.0 + (double) documents.size() / posting.size());
+        posting.forEach((id, weight) -> scores.merge(id, match * weight * rarity, Math::max));
+    }
+
+    // Optimal string alignment distance: insertions, deletions, substitutions and adjacent transpositions
+    static int editDistance(String source, String target) {
+        int[][] distance = new int[source.length() + 1][target.length() + 1];
+        for (int i = 0; i <= source.length(); i++) {
+            distance[i][0] = i;
+        }
+        for (int j = 0; j <= target.length(); j++) {
+            distance[0][j] = j;
+        }
+        for (int i = 1; i <= source.length(); i++) {
+            for (int j = 1; j <= target.length(); j++) {
+                int cost = source.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(distance[i - 1][j] + 1, distance[i][j - 1] + 1),
+                                     distance[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && source.charAt(i - 1) == target.charAt(j - 2)
+                        && source.charAt(i - 2) == target.charAt(j - 1)) {
+                    value = Math.min(value, distance[i - 2][j - 2] + 1);
+                }
+                distance[i][j] = value;
+            }
+        }
+        return distance[source.length()][target.length()];
+    }
+
+    private void add(ItemsEntity item) {
+        int id = Math.toIntExact(item.getId());
+        Map<String, Integer> itemTerms = new HashMap<>();
+        addField(itemTerms, item.getModel(), MODEL_WEIGHT);
+        addField(itemTerms, item.getBrand() == null ? null : item.getBrand().getBrand(), BRAND_WEIGHT);
+        addField(itemTerms, item.getColor(), ATTRIBUTE_WEIGHT);
+        addField(itemTerms, item.getOs() == null ? null : item.getOs().getOs(), ATTRIBUTE_WEIGHT);
+        addField(itemTerms, item.getInternalMemory() == null ? null : item.getInternalMemory().getInternalMemory(),
+                 ATTRIBUTE_WEIGHT);
+        addField(itemTerms, item.getRam() == null ? null : item.getRam().getRam(), ATTRIBUTE_WEIGHT);
+        itemTerms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+        terms.put(id, itemTerms);
+        documents.put(id, ItemsInfoMapper.INSTANCE.toDto(item));
+        if (item.getItemSalesInformation() != null && item.getItemSalesInformation().getId() != null) {
+            itemsBySalesInformation.put(item.getItemSalesInformation().getId(), id);
+        }
+    }
+
+    private static void addField(Map<String, Integer> itemTerms, String value, int weight) {
+        tokenize(value).forEach(term -> itemTerms.merge(term, weight, Math::max));
+    }
+
+    private void removeById(int id) {
+        Map<String, Integer> itemTerms = terms.remove(id);
+        if (itemTerms == null) {
+            return;
+        }
+        for (String term : itemTerms.keySet()) {
+            Map<Integer, Integer> posting = postings.get(term);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        documents.remove(id);
+        itemsBySalesInformation.values().remove(id);
+    }
+
+}
@@ -0,0 +1,98 @@
+package index;
+
+import entity.ItemsEntity;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Model autocomplete weighted by units sold; changes are batched into a background trie rebuild and swapped in
+@Slf4j
+public class ModelSuggestIndex implements CatalogIndex {
+
+    public static final ModelSuggestIndex INSTANCE = new ModelSuggestIndex();
+
+    private static final long REBUILD_DELAY_MILLIS = 500;
+
+    private final Map<Integer, String> modelsByItem = new ConcurrentHashMap<>();
+    // survives rebuild(items): sales come from sell_history, not from the items snapshot
+    private final Map<Integer, Long> salesByItem = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "model-suggest-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile ModelTrie trie = ModelTrie.EMPTY;
+
+    ModelSuggestIndex() {
+    }
+
+    @Override
+    public void rebuild(Collection<ItemsEntity> items) {
+        modelsByItem.clear();
+        items.forEach(item -> modelsByItem.put(Math.toIntExact(item.getId()), item.getModel()));
+        trie = buildTrie();
+    }
+
+    @Override
+    public void index(ItemsEntity item) {
+        modelsByItem.put(Math.toIntExact(item.getId()), item.getModel());
+        scheduleRebuild();
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        modelsByItem.remove(Math.toIntExact(itemId));
+        salesByItem.remove(Math.toIntExact(itemId));
+        scheduleRebuild();
+    }
+
+    @Override
+    public void recordSale(Long itemId, long quantity) {
+        salesByItem.merge(Math.toIntExact(itemId), quantity, Long::sum);
+        scheduleRebuild();
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank() || limit <= 0) {
+            return List.of();
+        }
+        return trie.complete(prefix.stripLeading(), Math.min(limit, ModelTrie.MAX_COMPLETIONS));
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.schedule(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    trie = buildTrie();
+                } catch (RuntimeException e) {
+                    log.error("Model suggestions rebuild failed", e);
+                }
+            }, REBUILD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Variants of one model (memory, color) share a suggestion and add up their sales
+    private ModelTrie buildTrie() {
+        Map<String, String> displayNames = new HashMap<>();
+        Map<String, Long> weights = new HashMap<>();
+        modelsByItem.forEach((id, model) -> {
+            if (model == null || model.isBlank()) {
+                return;
+            }
+            String display = displayNames.computeIfAbsent(model.toLowerCase(Locale.ROOT), key -> model);
+            weights.merge(display, salesByItem.getOrDefault(id, 0L), Long::sum);
+        });
+        return ModelTrie.build(weights);
+    }
+}
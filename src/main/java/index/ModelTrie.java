@@ -0,0 +1,111 @@
+package index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Immutable array-backed trie; every node keeps its best completions precomputed so a lookup is O(prefix length)
+final class ModelTrie {
+
+    static final int MAX_COMPLETIONS = 10;
+    static final ModelTrie EMPTY = build(Map.of());
+
+    private final String[] models;
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[][] completions;
+
+    private ModelTrie(String[] models, char[] labels, int[] firstChild, int[] nextSibling, int[][] completions) {
+        this.models = models;
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.completions = completions;
+    }
+
+    // model -> weight; heavier models come first, ties are broken by name
+    static ModelTrie build(Map<String, Long> weights) {
+        List<String> ranked = weights.keySet().stream()
+                .sorted(Comparator.<String, Long>comparing(weights::get).reversed()
+                                .thenComparing(Comparator.naturalOrder()))
+                .toList();
+        Node root = new Node();
+        int nodeCount = 1;
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            Node node = root;
+            node.offer(rank);
+            for (char label : ranked.get(rank).toLowerCase(Locale.ROOT).toCharArray()) {
+                Node child = node.children.get(label);
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(label, child);
+                    nodeCount++;
+                }
+                child.offer(rank);
+                node = child;
+            }
+        }
+
+        char[] labels = new char[nodeCount];
+        int[] firstChild = new int[nodeCount];
+        int[] nextSibling = new int[nodeCount];
+        int[][] completions = new int[nodeCount][];
+        List<Node> queue = new ArrayList<>(nodeCount);
+        queue.add(root);
+        for (int index = 0; index < queue.size(); index++) {
+            Node node = queue.get(index);
+            completions[index] = node.completions.stream().mapToInt(Integer::intValue).toArray();
+            firstChild[index] = node.children.isEmpty() ? -1 : queue.size();
+            int previous = -1;
+            for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                int childIndex = queue.size();
+                labels[childIndex] = child.getKey();
+                nextSibling[childIndex] = -1;
+                if (previous >= 0) {
+                    nextSibling[previous] = childIndex;
+                }
+                previous = childIndex;
+                queue.add(child.getValue());
+            }
+        }
+        nextSibling[0] = -1;
+        return new ModelTrie(ranked.toArray(String[]::new), labels, firstChild, nextSibling, completions);
+    }
+
+    List<String> complete(String prefix, int limit) {
+        int node = 0;
+        for (char label : prefix.toLowerCase(Locale.ROOT).toCharArray()) {
+            int child = firstChild[node];
+            while (child >= 0 && labels[child] != label) {
+                child = nextSibling[child];
+            }
+            if (child < 0) {
+                return List.of();
+            }
+            node = child;
+        }
+        int[] ranks = completions[node];
+        List<String> result = new ArrayList<>(Math.min(limit, ranks.length));
+        for (int i = 0; i < ranks.length && i < limit; i++) {
+            result.add(models[ranks[i]]);
+        }
+        return result;
+    }
+
+    private static class Node {
+
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private final List<Integer> completions = new ArrayList<>(1);
+
+        // Models are inserted best-first, so the first MAX_COMPLETIONS offers are the node's top list
+        private void offer(int rank) {
+            if (completions.size() < MAX_COMPLETIONS) {
+                completions.add(rank);
+            }
+        }
+    }
+}
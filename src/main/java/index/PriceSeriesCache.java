@@ -0,0 +1,202 @@
+package index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dao.PriceHistoryDao.PriceRevision;
+import dto.PricePointDto;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import utlis.AsyncAuditWriter;
+import utlis.jdbc.PropertiesUtil;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/*
+ * Price series per item_sales_information row, read once from its Envers revisions and afterwards only extended
+ * by the revisions added since, so a chart view costs at most one small delta query. A committed price change
+ * marks the row's series for a recheck. With audit.mode = sync the audit rows commit together with the change;
+ * with async they can reach the database later, so there the series keeps rechecking until the audit lag has
+ * passed. Changes made on other nodes show up within RECHECK. Removing a phone drops its series.
+ */
+public class PriceSeriesCache implements CatalogIndex {
+
+    public static final PriceSeriesCache INSTANCE = new PriceSeriesCache(
+            PropertiesUtil.getLongProperty("price.history.cache.max.size", 10_000L),
+            Duration.ofMillis(AsyncAuditWriter.ENABLED
+                                      ? PropertiesUtil.getLongProperty("price.history.audit.lag.millis", 5_000L) : 0L),
+            Duration.ofSeconds(PropertiesUtil.getLongProperty("price.history.recheck.seconds", 60L)));
+
+    private final Cache<Long, Series> cache;
+    private final Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+    private final Map<Long, Long> salesInformationIds = new ConcurrentHashMap<>();
+    private final long auditLagMillis;
+    private final long recheckMillis;
+
+    PriceSeriesCache(long maxSize, Duration auditLag, Duration recheck) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+        this.auditLagMillis = auditLag.toMillis();
+        this.recheckMillis = recheck.toMillis();
+    }
+
+    // revisionsAfter loads the row's revisions newer than the given revision number, oldest first
+    public Series get(Long salesInformationId, LongFunction<List<PriceRevision>> revisionsAfter) {
+        Series cached = cache.getIfPresent(salesInformationId);
+        if (cached != null && isFresh(salesInformationId, cached, System.currentTimeMillis())) {
+            return cached;
+        }
+        return cache.asMap().compute(salesInformationId, (id, current) -> {
+            long checkedAt = System.currentTimeMillis();
+            if (current != null && isFresh(id, current, checkedAt)) {
+                return current;
+            }
+            Series base = current == null ? Series.EMPTY : current;
+            Series extended = base.append(revisionsAfter.apply(base.lastRevision), checkedAt);
+            Long changed = changedAt.get(id);
+            if (changed != null && checkedAt > changed + auditLagMillis) {
+                changedAt.remove(id, changed);
+            }
+            return extended;
+        });
+    }
+
+    // Series are built on demand; the catalog only tells which row's series belongs to which phone
+    @Override
+    public void rebuild(Collection<ItemsEntity> items) {
+        salesInformationIds.clear();
+        items.forEach(this::index);
+    }
+
+    @Override
+    public void index(ItemsEntity item) {
+        if (item.getItemSalesInformation() != null && item.getItemSalesInformation().getId() != null) {
+            salesInformationIds.put(item.getId(), item.getItemSalesInformation().getId());
+        }
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        Long salesInformationId = salesInformationIds.remove(itemId);
+        if (salesInformationId != null) {
+            cache.invalidate(salesInformationId);
+            changedAt.remove(salesInformationId);
+        }
+    }
+
+    @Override
+    public void updateSalesInformation(ItemSalesInformationEntity salesInformation) {
+        changedAt.put(salesInformation.getId(), System.currentTimeMillis());
+    }
+
+    private boolean isFresh(Long salesInformationId, Series series, long now) {
+        Long changed = changedAt.get(salesInformationId);
+        return now - series.checkedAt < recheckMillis && (changed == null || series.checkedAt > changed + auditLagMillis);
+    }
+
+    /*
+     * Price changes as two parallel arrays. Appending writes past the end that older Series objects can see but
+     * never read, so extending a series copies nothing until the arrays are full.
+     */
+    public static final class Series {
+
+        private static final Series EMPTY = new Series(new long[0], new double[0], 0, 0L, 0L);
+
+        private final long[] times;
+        private final double[] prices;
+        private final int size;
+        private final long lastRevision;
+        private final long checkedAt;
+
+        private Series(long[] times, double[] prices, int size, long lastRevision, long checkedAt) {
+            this.times = times;
+            this.prices = prices;
+            this.size = size;
+            this.lastRevision = lastRevision;
+            this.checkedAt = checkedAt;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        // A revision that leaves the price as it was (a currency change, say) adds no point
+        private Series append(List<PriceRevision> revisions, long checkedAt) {
+            long[] newTimes = times;
+            double[] newPrices = prices;
+            int newSize = size;
+            long newLastRevision = lastRevision;
+            for (PriceRevision revision : revisions) {
+                newLastRevision = revision.revision();
+                if (revision.price() == null || newSize > 0 && newPrices[newSize - 1] == revision.price()) {
+                    continue;
+                }
+                if (newSize == newTimes.length) {
+                    newTimes = Arrays.copyOf(newTimes, Math.max(8, newSize * 2));
+                    newPrices = Arrays.copyOf(newPrices, newTimes.length);
+                }
+                // revisions written in one batch may carry commit times a few ms out of order
+                newTimes[newSize] = newSize == 0 ? revision.timestamp()
+                        : Math.max(revision.timestamp(), newTimes[newSize - 1]);
+                newPrices[newSize] = revision.price();
+                newSize++;
+            }
+            return new Series(newTimes, newPrices, newSize, newLastRevision, checkedAt);
+        }
+
+        /*
+         * The series within [from, to], opened by the price in effect at `from` and closed by the price in effect
+         * at `to` (or now, if that is earlier), downsampled to maxPoints with LTTB.
+         */
+        public List<PricePointDto> points(Instant from, Instant to, int maxPoints) {
+            long start = from.toEpochMilli();
+            long end = Math.min(to.toEpochMilli(), Math.max(checkedAt, start));
+            int first = firstAtOrAfter(start);
+            int last = firstAtOrAfter(end + 1);
+            long[] windowTimes = new long[last - first + 2];
+            double[] windowPrices = new double[windowTimes.length];
+            int count = 0;
+            if (first > 0 && (first == size || times[first] > start)) {
+                windowTimes[count] = start;
+                windowPrices[count++] = prices[first - 1];
+            }
+            for (int i = first; i < last; i++) {
+                windowTimes[count] = times[i];
+                windowPrices[count++] = prices[i];
+            }
+            if (count > 0 && windowTimes[count - 1] < end) {
+                windowTimes[count] = end;
+                windowPrices[count] = windowPrices[count - 1];
+                count++;
+            }
+            int[] kept = TimeSeriesDownsampler.largestTriangleThreeBuckets(windowTimes, windowPrices, count, maxPoints);
+            List<PricePointDto> points = new ArrayList<>(kept.length);
+            for (int index : kept) {
+                points.add(PricePointDto.of(Instant.ofEpochMilli(windowTimes[index]), windowPrices[index]));
+            }
+            return points;
+        }
+
+        private int firstAtOrAfter(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times[middle] < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
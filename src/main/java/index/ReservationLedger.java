@@ -0,0 +1,73 @@
+package index;
+
+import utlis.TimerWheel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+// Expiry of the stock holds this node took. The holds themselves are stock_reservation rows, which every node
+// subtracts from the stock; this only gives each one a timer wheel timeout that deletes it when the customer
+// walks away
+public class ReservationLedger implements AutoCloseable {
+
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final TimerWheel expiry;
+    private final LongConsumer onExpired;
+
+    public ReservationLedger(TimerWheel expiry, LongConsumer onExpired) {
+        this.expiry = expiry;
+        this.onExpired = onExpired;
+    }
+
+    public void track(Long reservationId, Long itemId, int quantity, long expiresInMillis) {
+        Hold hold = new Hold(itemId, quantity);
+        holds.put(reservationId, hold);
+        hold.timeout = expiry.schedule(() -> {
+            if (release(reservationId)) {
+                onExpired.accept(reservationId);
+            }
+        }, expiresInMillis);
+    }
+
+    // Exactly one of confirm, cancel and expiry wins; the others get false
+    public boolean release(Long reservationId) {
+        Hold hold = holds.remove(reservationId);
+        if (hold == null) {
+            return false;
+        }
+        TimerWheel.Timeout timeout = hold.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        return true;
+    }
+
+    public long held(Long itemId) {
+        return holds.values().stream()
+                .filter(hold -> hold.itemId.equals(itemId))
+                .mapToLong(hold -> hold.quantity)
+                .sum();
+    }
+
+    public int activeCount() {
+        return holds.size();
+    }
+
+    @Override
+    public void close() {
+        expiry.close();
+    }
+
+    private static final class Hold {
+
+        private final Long itemId;
+        private final int quantity;
+        private volatile TimerWheel.Timeout timeout;
+
+        private Hold(Long itemId, int quantity) {
+            this.itemId = itemId;
+            this.quantity = quantity;
+        }
+    }
+}
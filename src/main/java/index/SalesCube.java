@@ -0,0 +1,292 @@
+package index;
+
+import dto.CubeCellDto;
+import dto.CubeQueryDto;
+import dto.filter.CubeDimension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Sales facts in columns: every dimension value is replaced by a small code from a per-dimension dictionary and
+ * stored in a short[] column next to the units and revenue columns. A query turns its filter values into codes
+ * once and then fork-join scans the segments, each leaf aggregating its slice of rows into a map keyed by the
+ * codes of the grouped dimensions packed into one long.
+ */
+public class SalesCube {
+
+    static final String UNKNOWN = "UNKNOWN";
+    private static final CubeDimension[] DIMENSIONS = CubeDimension.values();
+    // six dimensions of ten bits fit into the long group key
+    private static final int CODE_BITS = 10;
+    private static final int MAX_CODES = 1 << CODE_BITS;
+    private static final int SLICE_ROWS = 16_384;
+    // a refresh is merged into the last segment while that stays below this size
+    private static final int SMALL_SEGMENT_ROWS = 65_536;
+
+    public static final SalesCube INSTANCE = new SalesCube(ForkJoinPool.commonPool());
+
+    private final ForkJoinPool pool;
+    private final Dictionary[] dictionaries = new Dictionary[DIMENSIONS.length];
+    private volatile List<Segment> segments = List.of();
+
+    SalesCube(ForkJoinPool pool) {
+        this.pool = pool;
+        for (int i = 0; i < dictionaries.length; i++) {
+            dictionaries[i] = new Dictionary();
+        }
+    }
+
+    public SegmentBuilder newSegment() {
+        return new SegmentBuilder();
+    }
+
+    public synchronized void replaceAll(List<Segment> loaded) {
+        segments = loaded.stream().filter(segment -> segment.rows > 0).toList();
+    }
+
+    public synchronized void append(Segment segment) {
+        if (segment.rows == 0) {
+            return;
+        }
+        List<Segment> current = new ArrayList<>(segments);
+        Segment last = current.isEmpty() ? null : current.get(current.size() - 1);
+        if (last != null && last.rows + segment.rows <= SMALL_SEGMENT_ROWS) {
+            current.set(current.size() - 1, last.concat(segment));
+        } else {
+            current.add(segment);
+        }
+        segments = List.copyOf(current);
+    }
+
+    public long rowCount() {
+        return segments.stream().mapToLong(segment -> segment.rows).sum();
+    }
+
+    // Cells ordered by revenue, biggest first; an empty group-by gives one grand total cell
+    public List<CubeCellDto> query(CubeQueryDto query) {
+        boolean[][] allowed = new boolean[DIMENSIONS.length][];
+        for (Map.Entry<CubeDimension, Set<String>> filter : query.getFilters().entrySet()) {
+            Dictionary dictionary = dictionaries[filter.getKey().ordinal()];
+            boolean[] codes = new boolean[MAX_CODES];
+            filter.getValue().forEach(value -> {
+                Integer code = dictionary.find(value);
+                if (code != null) {
+                    codes[code] = true;
+                }
+            });
+            allowed[filter.getKey().ordinal()] = codes;
+        }
+        int[] grouped = query.getGroupBy().stream().distinct().mapToInt(Enum::ordinal).toArray();
+
+        List<Slice> slices = new ArrayList<>();
+        for (Segment segment : segments) {
+            for (int from = 0; from < segment.rows; from += SLICE_ROWS) {
+                slices.add(new Slice(segment, from, Math.min(segment.rows, from + SLICE_ROWS)));
+            }
+        }
+        Map<Long, Cell> cells = slices.isEmpty() ? Map.of()
+                : pool.invoke(new ScanTask(slices, 0, slices.size(), allowed, grouped));
+
+        List<CubeCellDto> result = new ArrayList<>(cells.size());
+        cells.forEach((key, cell) -> {
+            Map<CubeDimension, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < grouped.length; i++) {
+                int code = (int) (key >>> (i * CODE_BITS)) & (MAX_CODES - 1);
+                values.put(DIMENSIONS[grouped[i]], dictionaries[grouped[i]].decode(code));
+            }
+            result.add(CubeCellDto.of(values, cell.units, cell.revenue, cell.sales));
+        });
+        result.sort(Comparator.comparingDouble(CubeCellDto::getRevenue).reversed());
+        return result;
+    }
+
+    public final class SegmentBuilder {
+
+        private final short[][] codes = new short[DIMENSIONS.length][];
+        private int[] units = new int[1024];
+        private double[] revenue = new double[1024];
+        private int rows;
+
+        private SegmentBuilder() {
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = new short[units.length];
+            }
+        }
+
+        // values are indexed by CubeDimension ordinal; null becomes UNKNOWN
+        public SegmentBuilder add(String[] values, int quantity, double amount) {
+            if (rows == units.length) {
+                int capacity = rows * 2;
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = Arrays.copyOf(codes[i], capacity);
+                }
+                units = Arrays.copyOf(units, capacity);
+                revenue = Arrays.copyOf(revenue, capacity);
+            }
+            for (int i = 0; i < codes.length; i++) {
+                codes[i][rows] = (short) dictionaries[i].code(values[i] == null ? UNKNOWN : values[i]);
+            }
+            units[rows] = quantity;
+            revenue[rows] = amount;
+            rows++;
+            return this;
+        }
+
+        public Segment build() {
+            short[][] columns = new short[codes.length][];
+            for (int i = 0; i < codes.length; i++) {
+                columns[i] = Arrays.copyOf(codes[i], rows);
+            }
+            return new Segment(columns, Arrays.copyOf(units, rows), Arrays.copyOf(revenue, rows), rows);
+        }
+    }
+
+    // Immutable once built, so queries read it without locks
+    public static final class Segment {
+
+        private final short[][] codes;
+        private final int[] units;
+        private final double[] revenue;
+        private final int rows;
+
+        private Segment(short[][] codes, int[] units, double[] revenue, int rows) {
+            this.codes = codes;
+            this.units = units;
+            this.revenue = revenue;
+            this.rows = rows;
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        private Segment concat(Segment next) {
+            short[][] columns = new short[codes.length][];
+            for (int i = 0; i < codes.length; i++) {
+                columns[i] = Arrays.copyOf(codes[i], rows + next.rows);
+                System.arraycopy(next.codes[i], 0, columns[i], rows, next.rows);
+            }
+            int[] allUnits = Arrays.copyOf(units, rows + next.rows);
+            System.arraycopy(next.units, 0, allUnits, rows, next.rows);
+            double[] allRevenue = Arrays.copyOf(revenue, rows + next.rows);
+            System.arraycopy(next.revenue, 0, allRevenue, rows, next.rows);
+            return new Segment(columns, allUnits, allRevenue, rows + next.rows);
+        }
+    }
+
+    // Append-only; codes are handed out under the lock, lookups of known values never take it
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[16];
+        private int size;
+
+        private int code(String value) {
+            Integer code = codes.get(value);
+            return code != null ? code : add(value);
+        }
+
+        private synchronized int add(String value) {
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == MAX_CODES) {
+                throw new IllegalStateException("More than " + MAX_CODES + " values in one cube dimension");
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = value;
+            values = current;
+            codes.put(value, size);
+            return size++;
+        }
+
+        private Integer find(String value) {
+            return codes.get(value);
+        }
+
+        private String decode(int code) {
+            return values[code];
+        }
+    }
+
+    private record Slice(Segment segment, int from, int to) {
+    }
+
+    private static final class Cell {
+
+        private long units;
+        private double revenue;
+        private long sales;
+
+        private Cell merge(Cell other) {
+            units += other.units;
+            revenue += other.revenue;
+            sales += other.sales;
+            return this;
+        }
+    }
+
+    private static final class ScanTask extends RecursiveTask<Map<Long, Cell>> {
+
+        private final List<Slice> slices;
+        private final int from;
+        private final int to;
+        private final boolean[][] allowed;
+        private final int[] grouped;
+
+        private ScanTask(List<Slice> slices, int from, int to, boolean[][] allowed, int[] grouped) {
+            this.slices = slices;
+            this.from = from;
+            this.to = to;
+            this.allowed = allowed;
+            this.grouped = grouped;
+        }
+
+        @Override
+        protected Map<Long, Cell> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(slices, from, middle, allowed, grouped);
+                left.fork();
+                Map<Long, Cell> right = new ScanTask(slices, middle, to, allowed, grouped).compute();
+                Map<Long, Cell> merged = left.join();
+                right.forEach((key, cell) -> merged.merge(key, cell, Cell::merge));
+                return merged;
+            }
+            Slice slice = slices.get(from);
+            short[][] codes = slice.segment().codes;
+            Map<Long, Cell> cells = new HashMap<>();
+            rows:
+            for (int row = slice.from(); row < slice.to(); row++) {
+                for (int dimension = 0; dimension < allowed.length; dimension++) {
+                    if (allowed[dimension] != null && !allowed[dimension][codes[dimension][row]]) {
+                        continue rows;
+                    }
+                }
+                long key = 0;
+                for (int i = 0; i < grouped.length; i++) {
+                    key |= (long) codes[grouped[i]][row] << (i * CODE_BITS);
+                }
+                Cell cell = cells.computeIfAbsent(key, ignored -> new Cell());
+                cell.units += slice.segment().units[row];
+                cell.revenue += slice.segment().revenue[row];
+                cell.sales++;
+            }
+            return cells;
+        }
+    }
+}
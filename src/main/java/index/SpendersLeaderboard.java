@@ -0,0 +1,108 @@
+package index;
+
+import dto.SpenderDto;
+import utlis.jdbc.PropertiesUtil;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/*
+ * Running total per buyer plus the K biggest of them in a sorted set. A sale only ever raises a total, so a buyer
+ * outside the top either stays out or replaces its smallest entry; removals and anything the events missed are
+ * corrected by reconcile, which swaps in totals aggregated by the database. Reads return a prebuilt list.
+ */
+public class SpendersLeaderboard {
+
+    public static final SpendersLeaderboard INSTANCE = new SpendersLeaderboard(
+            PropertiesUtil.getIntProperty("leaderboard.top.size", 10));
+
+    private static final Comparator<SpenderDto> BIGGEST_FIRST = Comparator
+            .comparingDouble(SpenderDto::getTotalSpent).reversed()
+            .thenComparing(SpenderDto::getUserId);
+
+    private final int size;
+    private Map<Long, Double> totals = new HashMap<>();
+    private final TreeSet<SpenderDto> top = new TreeSet<>(BIGGEST_FIRST);
+    // sales recorded while a reconciliation is loading, replayed onto the loaded totals
+    private Map<Long, Double> pending;
+    private volatile List<SpenderDto> snapshot = List.of();
+
+    public SpendersLeaderboard(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Leaderboard size must be positive");
+        }
+        this.size = size;
+    }
+
+    public synchronized void record(Long userId, double amount) {
+        if (pending != null) {
+            pending.merge(userId, amount, Double::sum);
+        }
+        double previous = totals.getOrDefault(userId, 0.0);
+        double total = previous + amount;
+        totals.put(userId, total);
+        boolean wasTop = top.remove(SpenderDto.of(userId, previous));
+        if (wasTop || top.size() < size || BIGGEST_FIRST.compare(SpenderDto.of(userId, total), top.last()) < 0) {
+            top.add(SpenderDto.of(userId, total));
+            if (top.size() > size) {
+                top.pollLast();
+            }
+            snapshot = List.copyOf(top);
+        }
+    }
+
+    public synchronized void remove(Long userId) {
+        if (pending != null) {
+            pending.remove(userId);
+        }
+        Double total = totals.remove(userId);
+        if (total != null && top.remove(SpenderDto.of(userId, total))) {
+            rebuildTop();
+        }
+    }
+
+    // O(K): the list is immutable and rebuilt only when the top changes
+    public List<SpenderDto> top() {
+        return snapshot;
+    }
+
+    /*
+     * The loader runs without the lock. A sale that commits just before the load starts but is recorded after it
+     * is counted twice until the next pass.
+     */
+    public void reconcile(Supplier<Map<Long, Double>> loader) {
+        synchronized (this) {
+            pending = new HashMap<>();
+        }
+        Map<Long, Double> loaded;
+        try {
+            loaded = new HashMap<>(loader.get());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            pending.forEach((userId, amount) -> loaded.merge(userId, amount, Double::sum));
+            pending = null;
+            totals = loaded;
+            rebuildTop();
+        }
+    }
+
+    private void rebuildTop() {
+        top.clear();
+        totals.forEach((userId, total) -> {
+            top.add(SpenderDto.of(userId, total));
+            if (top.size() > size) {
+                top.pollLast();
+            }
+        });
+        snapshot = List.copyOf(top);
+    }
+}
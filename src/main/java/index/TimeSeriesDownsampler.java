@@ -0,0 +1,59 @@
+package index;
+
+import lombok.experimental.UtilityClass;
+
+/*
+ * Largest-Triangle-Three-Buckets: keeps the first and the last point and, from every bucket in between, the point
+ * that spans the largest triangle with the point kept before it and the average of the next bucket. Peaks and dips
+ * survive, flat stretches collapse to a few points.
+ */
+@UtilityClass
+public class TimeSeriesDownsampler {
+
+    // Indexes of the points to keep, ascending; times must be ascending
+    public int[] largestTriangleThreeBuckets(long[] times, double[] values, int size, int threshold) {
+        if (size <= threshold) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        if (threshold < 3) {
+            return threshold <= 1 ? new int[]{size - 1} : new int[]{0, size - 1};
+        }
+        int[] kept = new int[threshold];
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int previous = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            double averageTime = 0;
+            double averageValue = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageTime += times[i] - times[0];
+                averageValue += values[i];
+            }
+            averageTime /= nextEnd - nextStart;
+            averageValue /= nextEnd - nextStart;
+
+            double previousTime = times[previous] - times[0];
+            double previousValue = values[previous];
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double largestArea = -1;
+            int chosen = previous + 1;
+            for (int i = (int) (bucket * bucketSize) + 1; i < end; i++) {
+                double area = Math.abs((previousTime - averageTime) * (values[i] - previousValue)
+                                       - (previousTime - (times[i] - times[0])) * (averageValue - previousValue));
+                if (area > largestArea) {
+                    largestArea = area;
+                    chosen = i;
+                }
+            }
+            kept[bucket + 1] = chosen;
+            previous = chosen;
+        }
+        kept[threshold - 1] = size - 1;
+        return kept;
+    }
+}
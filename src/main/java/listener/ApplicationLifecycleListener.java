@@ -0,0 +1,22 @@
+package listener;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import utlis.BackgroundJobs;
+import utlis.HibernateSessionFactory;
+
+// Owns the session factory for the lifetime of the web application: the jobs start with it and stop when it closes
+@WebListener
+public class ApplicationLifecycleListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        BackgroundJobs.start(HibernateSessionFactory.getSessionFactory());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        HibernateSessionFactory.closeSessionFactory();
+    }
+}
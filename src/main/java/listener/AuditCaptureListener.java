@@ -0,0 +1,157 @@
+package listener;
+
+import org.hibernate.Transaction;
+import org.hibernate.Version;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.envers.boot.internal.EnversService;
+import org.hibernate.envers.internal.synchronization.work.AddWorkUnit;
+import org.hibernate.envers.internal.synchronization.work.AuditWorkUnit;
+import org.hibernate.envers.internal.synchronization.work.DelWorkUnit;
+import org.hibernate.envers.internal.synchronization.work.ModWorkUnit;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import utlis.AsyncAuditWriter;
+import utlis.AuditChangeSet;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Takes the place of Envers' listeners when audit.mode is async. The work units of a transaction are built and
+ * merged exactly as Envers does it, turned into audit rows and appended to the writer's journal right before
+ * commit - so an entity that cannot be audited still fails its transaction, and a crash after the commit cannot
+ * lose the change set. The record carries the transaction id; the writer drops it if the commit did not happen.
+ * Revisions of the owning side of a mappedBy collection (revision_on_collection_change) are not generated.
+ *
+ * The work units are Envers internals, so the listener refuses to start on a Hibernate version it was not built
+ * and tested against (AsyncAuditWriterIntegrationTest reads its revisions back through the AuditReader).
+ */
+public class AuditCaptureListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    static final String SUPPORTED_HIBERNATE_VERSION = "6.4.";
+    private static final String TRANSACTION_ID = "select pg_current_xact_id()::text::bigint";
+
+    private final EnversService enversService;
+    private final AsyncAuditWriter writer;
+    private final Map<Transaction, ChangeCollector> collectors = new ConcurrentHashMap<>();
+
+    public AuditCaptureListener(EnversService enversService, AsyncAuditWriter writer) {
+        if (!Version.getVersionString().startsWith(SUPPORTED_HIBERNATE_VERSION)) {
+            throw new IllegalStateException("Async audit builds Envers " + SUPPORTED_HIBERNATE_VERSION
+                                            + "x work units and cannot run on Hibernate "
+                                            + Version.getVersionString() + "; use audit.mode = sync");
+        }
+        this.enversService = enversService;
+        this.writer = writer;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        String entityName = event.getPersister().getEntityName();
+        if (isAudited(entityName)) {
+            collect(event.getSession(), new AddWorkUnit(event.getSession(), entityName, enversService, event.getId(),
+                                                        event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        String entityName = event.getPersister().getEntityName();
+        if (isAudited(entityName)) {
+            collect(event.getSession(), new ModWorkUnit(event.getSession(), entityName, enversService, event.getId(),
+                                                        event.getPersister(), event.getState(),
+                                                        event.getOldState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        String entityName = event.getPersister().getEntityName();
+        if (isAudited(entityName)) {
+            collect(event.getSession(), new DelWorkUnit(event.getSession(), entityName, enversService, event.getId(),
+                                                        event.getPersister(), event.getDeletedState()));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private boolean isAudited(String entityName) {
+        return enversService.getEntitiesConfigurations().isVersioned(entityName);
+    }
+
+    private void collect(EventSource session, AuditWorkUnit workUnit) {
+        if (workUnit.containsWork()) {
+            collectors.computeIfAbsent(session.accessTransaction(), transaction -> register(session, transaction))
+                    .add(workUnit);
+        }
+    }
+
+    private ChangeCollector register(EventSource session, Transaction transaction) {
+        var collector = new ChangeCollector();
+        session.getActionQueue().registerProcess(completing -> {
+            byte[] payload = collector.serialize(transactionId(completing));
+            if (payload != null) {
+                writer.submit(payload);
+            }
+        });
+        session.getActionQueue().registerProcess((success, ignored) -> collectors.remove(transaction));
+        return collector;
+    }
+
+    private static long transactionId(SharedSessionContractImplementor session) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(TRANSACTION_ID);
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        });
+    }
+
+    private static final class ChangeCollector {
+
+        private final Map<List<Object>, AuditWorkUnit> workUnits = new LinkedHashMap<>();
+
+        // an insert and later updates of one entity end up as one ADD row, an insert and a delete as none
+        private void add(AuditWorkUnit workUnit) {
+            List<Object> key = List.of(workUnit.getEntityName(), workUnit.getEntityId());
+            AuditWorkUnit previous = workUnits.get(key);
+            if (previous == null) {
+                workUnits.put(key, workUnit);
+                return;
+            }
+            AuditWorkUnit merged = workUnit.dispatch(previous);
+            if (merged == null) {
+                workUnits.remove(key);
+            } else {
+                workUnits.put(key, merged);
+            }
+        }
+
+        private byte[] serialize(long transactionId) {
+            if (workUnits.isEmpty()) {
+                return null;
+            }
+            List<AuditChangeSet.Change> changes = new ArrayList<>(workUnits.size());
+            workUnits.values().forEach(workUnit -> changes.add(new AuditChangeSet.Change(
+                    workUnit.getEntityName(), workUnit.getEntityId(), new HashMap<>(workUnit.generateData(null)))));
+            return new AuditChangeSet(transactionId, System.currentTimeMillis(), changes).toBytes();
+        }
+    }
+}
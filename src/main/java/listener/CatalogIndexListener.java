@@ -0,0 +1,87 @@
+package listener;
+
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import entity.SellHistoryEntity;
+import index.CatalogIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.List;
+
+// Applies committed catalog changes to the in-memory indexes; rolled back transactions never reach them
+@Slf4j
+public class CatalogIndexListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final List<CatalogIndex> indexes;
+
+    public CatalogIndexListener(CatalogIndex... indexes) {
+        this.indexes = List.of(indexes);
+    }
+
+    public CatalogIndexListener warmUp(Session session) {
+        List<Object[]> sales = session.createQuery(
+                        "select s.itemId.id, sum(s.quantity) from SellHistoryEntity s group by s.itemId.id", Object[].class)
+                .getResultList();
+        sales.forEach(sale -> indexes.forEach(index -> index.recordSale((Long) sale[0], (Long) sale[1])));
+        List<ItemsEntity> items = session.createQuery(
+                        "select i from items i join fetch i.itemSalesInformation", ItemsEntity.class)
+                .getResultList();
+        indexes.forEach(index -> index.rebuild(items));
+        log.info("Catalog indexes warmed up with {} items", items.size());
+        return this;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof ItemsEntity item) {
+            indexes.forEach(index -> index.index(item));
+        } else if (event.getEntity() instanceof SellHistoryEntity sale && sale.getItemId() != null
+                   && sale.getQuantity() != null) {
+            indexes.forEach(index -> index.recordSale(sale.getItemId().getId(), sale.getQuantity()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof ItemsEntity item) {
+            indexes.forEach(index -> index.index(item));
+        } else if (event.getEntity() instanceof ItemSalesInformationEntity salesInformation) {
+            indexes.forEach(index -> index.updateSalesInformation(salesInformation));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof ItemsEntity) {
+            indexes.forEach(index -> index.remove((Long) event.getId()));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> mappedClass = persister.getMappedClass();
+        return mappedClass == ItemsEntity.class || mappedClass == ItemSalesInformationEntity.class
+               || mappedClass == SellHistoryEntity.class;
+    }
+}
@@ -0,0 +1,125 @@
+package listener;
+
+import dao.ImportantStatisticDao;
+import entity.ImportantStatisticEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.internal.SessionFactoryImpl;
+import utlis.jdbc.PropertiesUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Pending deltas of the single important_statistic row. Writers only bump striped LongAdder cells;
+// a background task adds them to the row with one relative UPDATE, so inserts never queue on its lock
+@Slf4j
+public class ImportantStatisticCounters implements SessionFactoryObserver {
+
+    private static final Map<SessionFactory, ImportantStatisticCounters> COUNTERS = new ConcurrentHashMap<>();
+    private static final Long STATISTIC_ID = ImportantStatisticEntity.builder().build().getId();
+    private static final long FLUSH_INTERVAL_MILLIS = PropertiesUtil.getLongProperty(
+            "important.statistic.flush.interval.millis", 1000L);
+
+    public enum Counter {
+        ALL_USERS, PREMIUM_USERS, SALES, ITEMS
+    }
+
+    private final transient SessionFactory sessionFactory;
+    private final transient LongAdder[] pending = new LongAdder[Counter.values().length];
+    private final transient ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "important-statistic-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    ImportantStatisticCounters(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = new LongAdder();
+        }
+    }
+
+    public static ImportantStatisticCounters start(SessionFactory sessionFactory) {
+        return COUNTERS.computeIfAbsent(sessionFactory, factory -> {
+            var counters = new ImportantStatisticCounters(factory);
+            factory.unwrap(SessionFactoryImpl.class).addObserver(counters);
+            counters.flusher.scheduleWithFixedDelay(counters::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                                                    TimeUnit.MILLISECONDS);
+            return counters;
+        });
+    }
+
+    public static ImportantStatisticCounters of(SessionFactory sessionFactory) {
+        ImportantStatisticCounters counters = COUNTERS.get(sessionFactory);
+        if (counters == null) {
+            throw new IllegalStateException("Important statistic counters are not started for this session factory");
+        }
+        return counters;
+    }
+
+    public void increment(Counter counter) {
+        pending[counter.ordinal()].increment();
+    }
+
+    // Stored row plus the deltas that have not reached it yet
+    public ImportantStatisticEntity read(Session session) {
+        return merge(session.get(ImportantStatisticEntity.class, STATISTIC_ID));
+    }
+
+    public synchronized void flush() {
+        long[] deltas = new long[pending.length];
+        boolean changed = false;
+        for (int i = 0; i < pending.length; i++) {
+            deltas[i] = pending[i].sumThenReset();
+            changed |= deltas[i] != 0;
+        }
+        if (!changed) {
+            return;
+        }
+        try (Session session = sessionFactory.openSession()) {
+            try {
+                session.beginTransaction();
+                new ImportantStatisticDao(session).addToCounters(STATISTIC_ID, deltas[Counter.ALL_USERS.ordinal()],
+                                                                 deltas[Counter.PREMIUM_USERS.ordinal()],
+                                                                 deltas[Counter.SALES.ordinal()],
+                                                                 deltas[Counter.ITEMS.ordinal()]);
+                session.getTransaction().commit();
+            } catch (RuntimeException e) {
+                if (session.getTransaction().isActive()) {
+                    session.getTransaction().rollback();
+                }
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            // keep the deltas for the next attempt instead of losing them
+            for (int i = 0; i < pending.length; i++) {
+                pending[i].add(deltas[i]);
+            }
+            log.error("Important statistic flush failed, deltas are kept for the next attempt", e);
+        }
+    }
+
+    @Override
+    public void sessionFactoryClosing(SessionFactory factory) {
+        flusher.shutdown();
+        flush();
+        COUNTERS.remove(factory);
+    }
+
+    ImportantStatisticEntity merge(ImportantStatisticEntity stored) {
+        var base = stored == null ? ImportantStatisticEntity.builder().build() : stored;
+        return ImportantStatisticEntity.builder()
+                .id(base.getId())
+                .allUsersCounter(base.getAllUsersCounter() + pending[Counter.ALL_USERS.ordinal()].sum())
+                .premiumUsersCounter(base.getPremiumUsersCounter() + pending[Counter.PREMIUM_USERS.ordinal()].sum())
+                .salesCounter(base.getSalesCounter() + pending[Counter.SALES.ordinal()].sum())
+                .itemsCounter(base.getItemsCounter() + pending[Counter.ITEMS.ordinal()].sum())
+                .build();
+    }
+}
@@ -4,49 +4,44 @@ import entity.ImportantStatisticEntity;
 import entity.ItemsEntity;
 import entity.PersonalAccountEntity;
 import entity.SellHistoryEntity;
-import org.hibernate.LockMode;
-import org.hibernate.LockOptions;
+import listener.ImportantStatisticCounters.Counter;
 import org.hibernate.Session;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
 import org.hibernate.event.spi.PostInsertEvent;
-import org.hibernate.event.spi.PostInsertEventListener;
 import org.hibernate.event.spi.PostUpdateEvent;
-import org.hibernate.event.spi.PostUpdateEventListener;
 import org.hibernate.persister.entity.EntityPersister;
 
 import java.util.Arrays;
 import java.util.Map;
-import java.util.function.Consumer;
 
-public class ImportantStatisticListener implements PostInsertEventListener, PostUpdateEventListener {
+// Counts committed changes only: the deltas live in ImportantStatisticCounters until its next flush
+public class ImportantStatisticListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener {
     private static final Class<PersonalAccountEntity> personalAccountEntityClass = PersonalAccountEntity.class;
     private static final Class<SellHistoryEntity> sellHistoryEntityClass = SellHistoryEntity.class;
     private static final Class<ItemsEntity> itemsEntityClass = ItemsEntity.class;
     private static final ImportantStatisticEntity statistic = ImportantStatisticEntity.builder().build();
-    private static final Map<Class<?>, Consumer<ImportantStatisticEntity>> applyChange =
-            Map.of(personalAccountEntityClass,
-                   (statisticEntity) -> statisticEntity.setAllUsersCounter(statisticEntity.getAllUsersCounter() + 1),
-                   sellHistoryEntityClass,
-                   (statisticEntity) -> statisticEntity.setSalesCounter(statisticEntity.getSalesCounter() + 1),
-                   itemsEntityClass,
-                   (statisticEntity) -> statisticEntity.setItemsCounter(statisticEntity.getItemsCounter() + 1));
+    private static final Map<Class<?>, Counter> applyChange = Map.of(personalAccountEntityClass, Counter.ALL_USERS,
+                                                                     sellHistoryEntityClass, Counter.SALES,
+                                                                     itemsEntityClass, Counter.ITEMS);
+
+    private final ImportantStatisticCounters counters;
+
+    public ImportantStatisticListener(ImportantStatisticCounters counters) {
+        this.counters = counters;
+    }
 
     @Override
     public void onPostInsert(PostInsertEvent event) {
-        Class<?> aClass = event.getEntity().getClass();
-        if (aClass == personalAccountEntityClass || aClass == sellHistoryEntityClass || aClass == itemsEntityClass) {
-            addPersonalStatistic(event.getSession(), aClass);
+        Counter counter = applyChange.get(event.getEntity().getClass());
+        if (counter != null) {
+            counters.increment(counter);
         }
     }
 
     @Override
     public boolean requiresPostCommitHandling(EntityPersister persister) {
-        return false;
-    }
-
-    private static void addPersonalStatistic(Session session, Class<?> clazz) {
-        var importantStatisticEntity = session.get(ImportantStatisticEntity.class, statistic.getId(),
-                                                   new LockOptions(LockMode.PESSIMISTIC_WRITE, 1));
-        applyChange.get(clazz).accept(importantStatisticEntity);
+        return true;
     }
 
     @Override
@@ -56,14 +51,19 @@ public class ImportantStatisticListener implements PostInsertEventListener, Post
             if (Arrays.stream(event.getDirtyProperties())
                         .anyMatch(value -> value == discountEnumIndex) && event.getOldState()[discountEnumIndex] == null)
             {
-                var importantStatisticEntity = event.getSession()
-                        .get(ImportantStatisticEntity.class, statistic.getId(),
-                             new LockOptions(LockMode.PESSIMISTIC_WRITE, 1));
-                importantStatisticEntity.setPremiumUsersCounter(importantStatisticEntity.getPremiumUsersCounter() + 1);
+                counters.increment(Counter.PREMIUM_USERS);
             }
         }
     }
 
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
     public ImportantStatisticListener createRowBeforeUseListener(Session session) {
         session.beginTransaction();
         if (session.get(ImportantStatisticEntity.class, statistic.getId()) == null) {
@@ -73,5 +73,3 @@ public class ImportantStatisticListener implements PostInsertEventListener, Post
         return this;
     }
 }
-
-
@@ -1,32 +1,33 @@
 package listener;
 
+import dao.EmailOutboxDao;
 import entity.PersonalAccountEntity;
-import exceptions.EmailSendException;
 import org.hibernate.event.spi.PostInsertEvent;
 import org.hibernate.event.spi.PostInsertEventListener;
 import org.hibernate.persister.entity.EntityPersister;
-import utlis.EmailSender;
-import validator.Error;
-import validator.ValidationErrors;
-
-import java.util.Properties;
-
+import utlis.ConfirmationEmailDispatcher;
 
+// Queues the confirmation email in the transaction that creates the account; the SMTP call happens after the commit
 public class SendAuthEmailListener implements PostInsertEventListener {
     private static final Class<PersonalAccountEntity> personalAccountEntityClass = PersonalAccountEntity.class;
-    private static final Properties properties = EmailSender.defaultTLSProperties();
-    private static final Error cantSendConfirmationEmail = new Error("Cant send confirmation email", "Wrong email. " +
-            "Please, check your email address");
+    private static final String CONFIRMATION_LINK = "link";
+
+    private final ConfirmationEmailDispatcher dispatcher;
+
+    public SendAuthEmailListener(ConfirmationEmailDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
 
     @Override
     public void onPostInsert(PostInsertEvent event) {
         if (event.getEntity().getClass() == personalAccountEntityClass) {
             PersonalAccountEntity entity = (PersonalAccountEntity) event.getEntity();
-            try {
-                EmailSender.sendTLSEmail(properties, entity.getEmail(), "link");
-            } catch (EmailSendException e) {
-                ValidationErrors.getInstance().addCreateAccountError(cantSendConfirmationEmail);
-            }
+            new EmailOutboxDao(event.getSession()).enqueue(entity.getEmail(), CONFIRMATION_LINK);
+            event.getSession().getActionQueue().registerProcess((success, session) -> {
+                if (success) {
+                    dispatcher.wakeUp();
+                }
+            });
         }
     }
 
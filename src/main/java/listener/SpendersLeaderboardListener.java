@@ -0,0 +1,48 @@
+package listener;
+
+import entity.PersonalAccountEntity;
+import entity.SellHistoryEntity;
+import index.SpendersLeaderboard;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+// Feeds committed sales into the leaderboard; a deleted account leaves it right away, its purchases with it
+public class SpendersLeaderboardListener implements PostCommitInsertEventListener, PostCommitDeleteEventListener {
+
+    private final SpendersLeaderboard leaderboard;
+
+    public SpendersLeaderboardListener(SpendersLeaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof SellHistoryEntity sale && sale.getUser() != null
+            && sale.getPrice() != null && sale.getQuantity() != null) {
+            leaderboard.record(sale.getUser().getId(), sale.getPrice() * sale.getQuantity());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof PersonalAccountEntity) {
+            leaderboard.remove((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+}
@@ -0,0 +1,41 @@
+package service;
+
+import com.hazelcast.cache.CacheStatistics;
+import com.hazelcast.cache.ICache;
+import dto.CacheRegionStatisticDto;
+import index.ItemsInfoCache;
+import utlis.HazelcastCacheRegions;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CacheStatisticsService {
+
+    // The L1 items cache followed by local member statistics of every second level cache region
+    public List<CacheRegionStatisticDto> regionStatistics() {
+        CacheManager cacheManager = HazelcastCacheRegions.getCacheManager();
+        return Stream.concat(Stream.of(ItemsInfoCache.INSTANCE.statistics()),
+                             HazelcastCacheRegions.regionNames().stream()
+                                     .map(cacheManager::getCache)
+                                     .filter(Objects::nonNull)
+                                     .map(CacheStatisticsService::toStatistic))
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CacheRegionStatisticDto toStatistic(Cache<Object, Object> cache) {
+        CacheStatistics statistics = cache.unwrap(ICache.class).getLocalCacheStatistics();
+        return CacheRegionStatisticDto.builder()
+                .region(cache.getName())
+                .entryCount(statistics.getOwnedEntryCount())
+                .hitCount(statistics.getCacheHits())
+                .missCount(statistics.getCacheMisses())
+                .evictionCount(statistics.getCacheEvictions())
+                .uptimeMillis(System.currentTimeMillis() - statistics.getCreationTime())
+                .build();
+    }
+}
@@ -1,11 +1,25 @@
 package service;
 
 import dao.ItemsDao;
+import dao.StockMovementDao;
 import dto.AddItemDto;
+import dto.CatalogChangeDto;
+import dto.CatalogChangesDto;
+import dto.ItemsCountDto;
 import dto.ItemsInfoDto;
+import dto.ItemsPageDto;
+import dto.QueryCacheStatisticDto;
 import dto.UpdateItemDto;
 import dto.filter.AttributesFilter;
+import dto.filter.CatalogSyncToken;
+import dto.filter.FacetFilter;
+import dto.filter.ItemsCursor;
+import dto.filter.ItemsSort;
 import entity.ItemsEntity;
+import index.ItemsFacetIndex;
+import index.ItemsInfoCache;
+import index.ItemsSearchIndex;
+import index.ModelSuggestIndex;
 import io.vavr.control.Either;
 import jakarta.inject.Inject;
 import jakarta.validation.ConstraintViolation;
@@ -15,9 +29,18 @@ import mapper.ItemsInfoMapper;
 import mapper.UpdateItemMapper;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import utlis.ExpiringCache;
+import utlis.jdbc.PropertiesUtil;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -25,6 +48,12 @@ import java.util.stream.Collectors;
 
 public class ItemsService {
 
+    private static final long EXACT_COUNT_THRESHOLD = PropertiesUtil.getLongProperty(
+            "items.count.exact.threshold", 10_000L);
+    private static final ExpiringCache<CountKey, Long> EXACT_COUNTS = new ExpiringCache<>(
+            Duration.ofSeconds(PropertiesUtil.getLongProperty("items.count.cache.ttl.seconds", 30L)), 1024);
+    private static final int SYNC_MAX_PAGE_SIZE = PropertiesUtil.getIntProperty("catalog.sync.max.page.size", 500);
+
     @Inject
     public ItemsService(ItemsDao itemDao, SessionFactory sessionFactory, Validator validator) {
         this.itemDao = itemDao;
@@ -71,7 +100,14 @@ public class ItemsService {
                 .begin();
         Optional<ItemsEntity> byId = itemDao.getById(updateItemDto.getId());
         AtomicBoolean atomicRes = new AtomicBoolean(true);
-        byId.ifPresentOrElse(v -> itemDao.update(updateItemMapper), () -> atomicRes.set(false));
+        byId.ifPresentOrElse(v -> {
+            itemDao.update(updateItemMapper);
+            // the quantity column is not updatable any more: an edited quantity is recorded as a correction
+            var salesInformation = updateItemMapper.getItemSalesInformation();
+            if (salesInformation != null && salesInformation.getQuantity() != null) {
+                new StockMovementDao(session).appendCorrection(v.getId(), salesInformation.getQuantity());
+            }
+        }, () -> atomicRes.set(false));
         boolean res = atomicRes.get();
         session.getTransaction()
                 .commit();
@@ -82,16 +118,7 @@ public class ItemsService {
     }
 
     public Optional<ItemsInfoDto> getById(long id) {
-        ItemsInfoMapper itemsInfoMapper = ItemsInfoMapper.INSTANCE;
-        Session session = sessionFactory.getCurrentSession();
-        session.getTransaction()
-                .begin();
-        ItemsEntity itemsEntity = itemDao.getById(id)
-                .get();
-        Optional<ItemsInfoDto> getDto = Optional.of(itemsInfoMapper.toDto(itemsEntity));
-        session.getTransaction()
-                .commit();
-        return getDto;
+        return Optional.of(ItemsInfoCache.INSTANCE.get(id, this::loadById));
     }
 
     public List<ItemsInfoDto> findItemsWithParameters(AttributesFilter filter, long page, long limit) {
@@ -125,18 +152,183 @@ public class ItemsService {
     }
 
     public List<ItemsInfoDto> findAllWithOffsetAndLimit(long page, long limit) {
+        Session session = sessionFactory.getCurrentSession();
+        session.getTransaction()
+                .begin();
+        List<ItemsInfoDto> items = itemDao.findItemsInfoWithOffsetAndLimit(page, limit);
+        session.getTransaction()
+                .commit();
+        return items;
+    }
+
+    public ItemsPageDto findItemsPage(AttributesFilter filter, long page, long limit) {
+        Session session = sessionFactory.getCurrentSession();
+        session.getTransaction()
+                .begin();
+        List<ItemsInfoDto> items = itemDao.findItemsInfoWithParameters(filter, page, limit);
+        ItemsCountDto count = countItems(filter, true);
+        session.getTransaction()
+                .commit();
+        return ItemsPageDto.builder()
+                .items(items)
+                .totalCount(count.getCount())
+                .exactCount(count.isExact())
+                .pageCount(pageCount(count.getCount(), limit))
+                .build();
+    }
+
+    public ItemsPageDto findItemsAfter(AttributesFilter filter, ItemsSort sort, String after, long limit) {
         ItemsInfoMapper itemsInfoMapper = ItemsInfoMapper.INSTANCE;
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        ItemsCursor cursor = after == null || after.isBlank() ? null : ItemsCursor.decode(after)
+                .filter(decoded -> decoded.getSort() == sort)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid cursor"));
         Session session = sessionFactory.getCurrentSession();
         session.getTransaction()
                 .begin();
-        List<Optional<ItemsEntity>> items = itemDao.findAllWithOffsetAndLimit(page, limit);
-        List<ItemsInfoDto> collected = items.stream()
-                .filter(Optional::isPresent)
-                .map(optionalItemsEntity -> itemsInfoMapper.toDto(optionalItemsEntity.get()))
-                .collect(Collectors.toList());
+        List<ItemsEntity> items = itemDao.findItemsAfter(filter, sort, cursor, limit + 1);
+        // the total is shown with the first page only; following pages just seek
+        ItemsCountDto count = cursor == null ? countItems(filter, ItemsDao.joinsSalesInformation(sort)) : null;
         session.getTransaction()
                 .commit();
-        return collected;
+        boolean hasNext = items.size() > limit;
+        List<ItemsEntity> pageItems = hasNext ? items.subList(0, (int) limit) : items;
+        String nextCursor = hasNext ? cursorOf(sort, pageItems.get(pageItems.size() - 1)).encode() : null;
+        return ItemsPageDto.builder()
+                .items(pageItems.stream()
+                               .map(itemsInfoMapper::toDto)
+                               .collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .totalCount(count == null ? null : count.getCount())
+                .exactCount(count != null && count.isExact())
+                .pageCount(count == null ? null : pageCount(count.getCount(), limit))
+                .build();
     }
 
-}
\ No newline at end of file
+    /*
+     * Phones inserted, updated or deleted after the token, oldest change first, with the token to continue from. A
+     * change carries the phone as it is now, so applying a page twice or out of a later page's order is harmless.
+     */
+    public CatalogChangesDto findChangesSince(String since, int limit) {
+        CatalogSyncToken token = CatalogSyncToken.decode(since)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown catalog token"));
+        int pageSize = Math.max(1, Math.min(limit, SYNC_MAX_PAGE_SIZE));
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            List<ItemsDao.CatalogChange> changes = itemDao.findChangesAfter(token, pageSize);
+            Map<Long, ItemsEntity> items = new HashMap<>();
+            itemDao.getAllByIds(changes.stream()
+                                        .filter(change -> !change.deleted())
+                                        .map(ItemsDao.CatalogChange::itemId)
+                                        .toList())
+                    .getFound()
+                    .forEach(item -> items.put(item.getId(), item));
+            List<CatalogChangeDto> changeDtos = changes.stream()
+                    .map(change -> toChangeDto(change, items.get(change.itemId())))
+                    .toList();
+            session.getTransaction().commit();
+            CatalogSyncToken next = changes.isEmpty() ? token : changes.get(changes.size() - 1).token();
+            return CatalogChangesDto.builder()
+                    .changes(changeDtos)
+                    .token(next.encode())
+                    .hasMore(changes.size() == pageSize)
+                    .build();
+        } catch (RuntimeException e) {
+            if (session.getTransaction().isActive()) {
+                session.getTransaction().rollback();
+            }
+            throw e;
+        }
+    }
+
+    private ItemsEntity loadById(long id) {
+        Session session = sessionFactory.getCurrentSession();
+        session.getTransaction()
+                .begin();
+        ItemsEntity itemsEntity = itemDao.getById(id)
+                .get();
+        session.getTransaction()
+                .commit();
+        return itemsEntity;
+    }
+
+    // Served from the in-memory bitmap index, no database round trip
+    public ItemsPageDto findItemsWithFacets(FacetFilter filter, long page, long limit) {
+        return ItemsFacetIndex.INSTANCE.find(filter, page, limit);
+    }
+
+    public ItemsPageDto searchItems(String query, long page, long limit) {
+        return ItemsSearchIndex.INSTANCE.search(query, page, limit);
+    }
+
+    public List<String> suggestModels(String prefix, int limit) {
+        return ModelSuggestIndex.INSTANCE.suggest(prefix, limit);
+    }
+
+    // Per-query result cache usage, busiest queries first; needs hibernate.generate_statistics
+    public List<QueryCacheStatisticDto> queryCacheStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        return Arrays.stream(statistics.getQueries())
+                .map(query -> {
+                    QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+                    return QueryCacheStatisticDto.of(query, queryStatistics.getCacheHitCount(),
+                                                     queryStatistics.getCacheMissCount(),
+                                                     queryStatistics.getCachePutCount());
+                })
+                .filter(statistic -> statistic.getHitCount() + statistic.getMissCount() > 0)
+                .sorted(Comparator.comparingLong((QueryCacheStatisticDto statistic) ->
+                                                         statistic.getHitCount() + statistic.getMissCount())
+                                .reversed())
+                .collect(Collectors.toList());
+    }
+
+    // Planner estimate for large result sets, exact count(*) (cached per filter shape and join) for small ones
+    private ItemsCountDto countItems(AttributesFilter filter, boolean withSalesInformation) {
+        CountKey key = new CountKey(filter, withSalesInformation);
+        Optional<Long> cached = EXACT_COUNTS.get(key);
+        if (cached.isPresent()) {
+            return ItemsCountDto.of(cached.get(), true);
+        }
+        long estimate = itemDao.estimateItemsWithParameters(filter, withSalesInformation);
+        if (estimate > EXACT_COUNT_THRESHOLD) {
+            return ItemsCountDto.of(estimate, false);
+        }
+        long exact = itemDao.countItemsWithParameters(filter, withSalesInformation);
+        EXACT_COUNTS.put(key, exact);
+        return ItemsCountDto.of(exact, true);
+    }
+
+    // a phone deleted after its change was read is reported deleted now, its own change follows on a later call
+    private static CatalogChangeDto toChangeDto(ItemsDao.CatalogChange change, ItemsEntity item) {
+        if (item == null) {
+            return CatalogChangeDto.builder()
+                    .itemId(change.itemId())
+                    .deleted(true)
+                    .build();
+        }
+        return CatalogChangeDto.builder()
+                .itemId(change.itemId())
+                .version(item.getVersion())
+                .item(ItemsInfoMapper.INSTANCE.toDto(item))
+                .build();
+    }
+
+    private static long pageCount(long count, long limit) {
+        return limit <= 0 ? 0 : (count + limit - 1) / limit;
+    }
+
+    private static ItemsCursor cursorOf(ItemsSort sort, ItemsEntity last) {
+        return switch (sort) {
+            case PRICE -> ItemsCursor.of(sort, last.getItemSalesInformation().getId(),
+                                         last.getItemSalesInformation().getPrice());
+            case MODEL -> ItemsCursor.of(sort, last.getId(), last.getModel());
+            case NEWEST -> ItemsCursor.of(sort, last.getId(), null);
+        };
+    }
+
+    private record CountKey(AttributesFilter filter, boolean withSalesInformation) {
+    }
+}
@@ -0,0 +1,134 @@
+package service;
+
+import dao.SellHistoryDao;
+import dao.StockMovementDao;
+import dto.OrderLineDto;
+import dto.OrderLineResultDto;
+import dto.OrderLineResultDto.Status;
+import dto.OrderResultDto;
+import entity.ItemsEntity;
+import entity.PersonalAccountEntity;
+import entity.SellHistoryEntity;
+import jakarta.inject.Inject;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import utlis.jdbc.PropertiesUtil;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+ * Places a whole cart in one transaction: the items are locked in ascending id order, all balances are read with
+ * one query, and every line gets its own outcome. Lines that cannot be covered are reported and skipped, the rest
+ * are written as one batch of stock movements and one batch of sell_history rows.
+ */
+public class OrderService {
+
+    private static final int MAX_LINES = PropertiesUtil.getIntProperty("orders.max.lines", 500);
+
+    private final SessionFactory sessionFactory;
+    private final StockMovementDao stockMovementDao;
+    private final SellHistoryDao sellHistoryDao;
+
+    @Inject
+    public OrderService(SessionFactory sessionFactory, StockMovementDao stockMovementDao,
+                        SellHistoryDao sellHistoryDao) {
+        this.sessionFactory = sessionFactory;
+        this.stockMovementDao = stockMovementDao;
+        this.sellHistoryDao = sellHistoryDao;
+    }
+
+    public OrderResultDto placeOrder(Long userId, List<OrderLineDto> lines) {
+        if (lines.size() > MAX_LINES) {
+            throw new IllegalArgumentException("An order can have at most " + MAX_LINES + " lines");
+        }
+        List<Long> itemIds = lines.stream()
+                .map(OrderLineDto::getItemId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            stockMovementDao.lockItems(itemIds);
+            List<Status> statuses = allocate(lines, stockMovementDao.balances(itemIds));
+            Map<Long, ItemsEntity> items = new HashMap<>();
+            session.byMultipleIds(ItemsEntity.class)
+                    .multiLoad(itemIds)
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .forEach(item -> items.put(item.getId(), item));
+
+            List<Map.Entry<Long, Integer>> movements = new ArrayList<>();
+            SellHistoryEntity[] sales = new SellHistoryEntity[lines.size()];
+            PersonalAccountEntity user = session.getReference(PersonalAccountEntity.class, userId);
+            OffsetDateTime now = OffsetDateTime.now();
+            for (int i = 0; i < lines.size(); i++) {
+                if (statuses.get(i) != Status.PLACED) {
+                    continue;
+                }
+                OrderLineDto line = lines.get(i);
+                ItemsEntity item = items.get(line.getItemId());
+                movements.add(Map.entry(line.getItemId(), line.getQuantity()));
+                sales[i] = SellHistoryEntity.builder()
+                        .itemId(item)
+                        .user(user)
+                        .quantity(line.getQuantity())
+                        .price(item.getItemSalesInformation().getPrice())
+                        .sellDate(now)
+                        .stockRecorded(true)
+                        .build();
+            }
+            if (!movements.isEmpty()) {
+                stockMovementDao.appendSales(movements);
+                session.setJdbcBatchSize(movements.size());
+                for (SellHistoryEntity sale : sales) {
+                    if (sale != null) {
+                        sellHistoryDao.insert(sale);
+                    }
+                }
+            }
+            session.getTransaction().commit();
+
+            List<OrderLineResultDto> results = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                results.add(OrderLineResultDto.builder()
+                                    .itemId(lines.get(i).getItemId())
+                                    .quantity(lines.get(i).getQuantity())
+                                    .status(statuses.get(i))
+                                    .sellId(sales[i] == null ? null : sales[i].getId())
+                                    .build());
+            }
+            return OrderResultDto.of(results);
+        } catch (RuntimeException e) {
+            if (session.getTransaction().isActive()) {
+                session.getTransaction().rollback();
+            }
+            throw e;
+        }
+    }
+
+    // Lines are served in cart order; several lines of one phone share its balance
+    static List<Status> allocate(List<OrderLineDto> lines, Map<Long, Long> balances) {
+        Map<Long, Long> remaining = new HashMap<>(balances);
+        List<Status> statuses = new ArrayList<>(lines.size());
+        for (OrderLineDto line : lines) {
+            if (line.getQuantity() == null || line.getQuantity() <= 0) {
+                statuses.add(Status.INVALID_QUANTITY);
+            } else if (line.getItemId() == null || !remaining.containsKey(line.getItemId())) {
+                statuses.add(Status.UNKNOWN_ITEM);
+            } else if (remaining.get(line.getItemId()) < line.getQuantity()) {
+                statuses.add(Status.INSUFFICIENT_STOCK);
+            } else {
+                remaining.merge(line.getItemId(), (long) -line.getQuantity(), Long::sum);
+                statuses.add(Status.PLACED);
+            }
+        }
+        return statuses;
+    }
+}
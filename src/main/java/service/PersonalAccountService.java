@@ -1,12 +1,14 @@
 package service;
 
 import dao.PersonalAccountDao;
+import dto.SpenderDto;
 import dto.personalAccount.AuthUserDto;
 import dto.personalAccount.CreateAccountDto;
 import dto.personalAccount.ReadUserInfoDto;
 import dto.personalAccount.UpdateUserDto;
 import entity.PersonalAccountEntity;
 import entity.SellHistoryEntity;
+import index.SpendersLeaderboard;
 import io.vavr.control.Either;
 import jakarta.inject.Inject;
 import jakarta.validation.ConstraintViolation;
@@ -21,6 +23,7 @@ import org.hibernate.graph.GraphSemantic;
 import validator.CreateUserGroup;
 import validator.UpdateUserGroup;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -103,6 +106,11 @@ public class PersonalAccountService {
         return result;
     }
 
+    // No query: the leaderboard is kept up to date from committed sales
+    public List<SpenderDto> getTopSpenders() {
+        return SpendersLeaderboard.INSTANCE.top();
+    }
+
     public Optional<ReadUserInfoDto> readUser(Long id) {
         Session currentSession = sessionFactory.getCurrentSession();
         currentSession.beginTransaction();
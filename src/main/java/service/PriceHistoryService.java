@@ -0,0 +1,58 @@
+package service;
+
+import dao.ItemsDao;
+import dao.PriceHistoryDao;
+import dto.PricePointDto;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import index.PriceSeriesCache;
+import jakarta.inject.Inject;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import utlis.jdbc.PropertiesUtil;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// A phone's price over time for product-page charts, served from PriceSeriesCache
+public class PriceHistoryService {
+
+    private static final int MAX_POINTS = PropertiesUtil.getIntProperty("price.history.max.points", 1000);
+
+    private final SessionFactory sessionFactory;
+    private final ItemsDao itemsDao;
+    private final PriceHistoryDao priceHistoryDao;
+
+    @Inject
+    public PriceHistoryService(SessionFactory sessionFactory, ItemsDao itemsDao, PriceHistoryDao priceHistoryDao) {
+        this.sessionFactory = sessionFactory;
+        this.itemsDao = itemsDao;
+        this.priceHistoryDao = priceHistoryDao;
+    }
+
+    // At most maxPoints points (capped by price.history.max.points); empty for an unknown phone
+    public List<PricePointDto> getPriceHistory(Long itemId, OffsetDateTime from, OffsetDateTime to, int maxPoints) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("The price history range must end after it starts");
+        }
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            Optional<PriceSeriesCache.Series> series = itemsDao.getById(itemId)
+                    .map(ItemsEntity::getItemSalesInformation)
+                    .map(ItemSalesInformationEntity::getId)
+                    .map(salesInformationId -> PriceSeriesCache.INSTANCE.get(
+                            salesInformationId,
+                            afterRevision -> priceHistoryDao.getRevisionsAfter(salesInformationId, afterRevision)));
+            session.getTransaction().commit();
+            return series.map(found -> found.points(from.toInstant(), to.toInstant(), Math.min(maxPoints, MAX_POINTS)))
+                    .orElseGet(List::of);
+        } catch (RuntimeException e) {
+            if (session.getTransaction().isActive()) {
+                session.getTransaction().rollback();
+            }
+            throw e;
+        }
+    }
+}
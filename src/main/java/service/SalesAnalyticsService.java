@@ -0,0 +1,19 @@
+package service;
+
+import dto.CubeCellDto;
+import dto.CubeQueryDto;
+import index.SalesCube;
+
+import java.util.List;
+
+// Ad-hoc slices of the sales history; answered from the in-memory cube, the database is not queried
+public class SalesAnalyticsService {
+
+    public List<CubeCellDto> query(CubeQueryDto query) {
+        return SalesCube.INSTANCE.query(query);
+    }
+
+    public long loadedSales() {
+        return SalesCube.INSTANCE.rowCount();
+    }
+}
@@ -0,0 +1,39 @@
+package service;
+
+import dao.SalesRollupDao;
+import dto.SalesTotalsDto;
+import dto.filter.SalesGroup;
+import jakarta.inject.Inject;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public class SalesReportService {
+
+    private final SessionFactory sessionFactory;
+    private final SalesRollupDao salesRollupDao;
+
+    @Inject
+    public SalesReportService(SessionFactory sessionFactory, SalesRollupDao salesRollupDao) {
+        this.sessionFactory = sessionFactory;
+        this.salesRollupDao = salesRollupDao;
+    }
+
+    // Units, revenue and order count in [from, to), biggest revenue first
+    public List<SalesTotalsDto> getTotals(OffsetDateTime from, OffsetDateTime to, SalesGroup group) {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            List<SalesTotalsDto> totals = salesRollupDao.totals(from.toInstant(), to.toInstant(), group);
+            session.getTransaction().commit();
+            return totals;
+        } catch (RuntimeException e) {
+            if (session.getTransaction().isActive()) {
+                session.getTransaction().rollback();
+            }
+            throw e;
+        }
+    }
+}
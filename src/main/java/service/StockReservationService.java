@@ -0,0 +1,223 @@
+package service;
+
+import dao.SellHistoryDao;
+import dao.StockMovementDao;
+import dao.StockReservationDao;
+import dto.ReservationDto;
+import entity.ItemsEntity;
+import entity.PersonalAccountEntity;
+import entity.SellHistoryEntity;
+import entity.StockReservationEntity;
+import exceptions.IncorrectQuantityException;
+import exceptions.ReservationExpiredException;
+import index.ReservationLedger;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import utlis.TimerWheel;
+import utlis.jdbc.PropertiesUtil;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+ * Checkout holds: available-to-sell is on-hand stock minus the active stock_reservation rows of every node, and the
+ * sale paths subtract the same rows. A hold is checked under the stock lock of its phone, expires through the timer
+ * wheel of the node that took it and becomes a sell_history row on confirm, where ItemQuantityListener records
+ * the sale.
+ */
+@Slf4j
+public class StockReservationService {
+
+    private static final Duration RESERVATION_TTL = Duration.ofSeconds(
+            PropertiesUtil.getLongProperty("reservation.ttl.seconds", 600L));
+    private static final long WHEEL_TICK_MILLIS = PropertiesUtil.getLongProperty("reservation.wheel.tick.millis", 100L);
+    private static final int WHEEL_SIZE = 512;
+    private static final String NODE_ID = nodeId();
+
+    private static volatile ReservationLedger ledger;
+
+    private final SessionFactory sessionFactory;
+    private final StockReservationDao reservationDao;
+    private final SellHistoryDao sellHistoryDao;
+    private final StockMovementDao stockMovementDao;
+
+    @Inject
+    public StockReservationService(SessionFactory sessionFactory, StockReservationDao reservationDao,
+                                   SellHistoryDao sellHistoryDao, StockMovementDao stockMovementDao) {
+        this.sessionFactory = sessionFactory;
+        this.reservationDao = reservationDao;
+        this.sellHistoryDao = sellHistoryDao;
+        this.stockMovementDao = stockMovementDao;
+    }
+
+    public ReservationDto reserve(Long itemId, Long userId, int quantity) {
+        if (quantity <= 0) {
+            throw new IncorrectQuantityException();
+        }
+        ReservationLedger reservations = ledger();
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        StockReservationEntity reservation;
+        try {
+            ItemsEntity item = session.get(ItemsEntity.class, itemId);
+            if (item == null) {
+                throw new NoSuchElementException("No item with id " + itemId);
+            }
+            stockMovementDao.lockStock(itemId);
+            if (stockMovementDao.available(itemId) < quantity) {
+                throw new IncorrectQuantityException();
+            }
+            reservation = StockReservationEntity.builder()
+                    .item(item)
+                    .user(session.getReference(PersonalAccountEntity.class, userId))
+                    .quantity(quantity)
+                    .expiresAt(OffsetDateTime.now().plus(RESERVATION_TTL))
+                    .nodeId(NODE_ID)
+                    .build();
+            reservationDao.insert(reservation);
+            session.getTransaction().commit();
+        } catch (RuntimeException e) {
+            rollback(session);
+            throw e;
+        }
+        reservations.track(reservation.getId(), itemId, quantity, RESERVATION_TTL.toMillis());
+        return ReservationDto.builder()
+                .id(reservation.getId())
+                .itemId(itemId)
+                .quantity(quantity)
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+    }
+
+    // The hold is released only after the sale commits, so the stock is never offered twice in between
+    public Long confirm(Long reservationId, Long userId) {
+        ReservationLedger reservations = ledger();
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        SellHistoryEntity sale;
+        try {
+            OffsetDateTime now = OffsetDateTime.now();
+            StockReservationEntity reservation = reservationDao.getById(reservationId)
+                    .filter(found -> found.getUser().getId().equals(userId))
+                    .orElseThrow(() -> new ReservationExpiredException(reservationId));
+            if (!reservationDao.claim(reservationId, now)) {
+                throw new ReservationExpiredException(reservationId);
+            }
+            ItemsEntity item = reservation.getItem();
+            sale = SellHistoryEntity.builder()
+                    .itemId(item)
+                    .user(reservation.getUser())
+                    .quantity(reservation.getQuantity())
+                    .sellDate(now)
+                    .price(item.getItemSalesInformation().getPrice())
+                    .build();
+            sellHistoryDao.insert(sale);
+            session.getTransaction().commit();
+        } catch (RuntimeException e) {
+            rollback(session);
+            throw e;
+        }
+        reservations.release(reservationId);
+        return sale.getId();
+    }
+
+    public boolean cancel(Long reservationId, Long userId) {
+        ReservationLedger reservations = ledger();
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        boolean deleted;
+        try {
+            deleted = reservationDao.deleteById(reservationId, userId);
+            session.getTransaction().commit();
+        } catch (RuntimeException e) {
+            rollback(session);
+            throw e;
+        }
+        if (deleted) {
+            reservations.release(reservationId);
+        }
+        return deleted;
+    }
+
+    public long availableToSell(Long itemId) {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        long available = stockMovementDao.available(itemId);
+        session.getTransaction().commit();
+        return Math.max(0, available);
+    }
+
+    // The first caller restarts the expiry of this node's holds and drops the holds of any node that ran out
+    private ReservationLedger ledger() {
+        if (ledger == null) {
+            synchronized (StockReservationService.class) {
+                if (ledger == null) {
+                    ledger = recover(new ReservationLedger(new TimerWheel("stock-reservation-expiry",
+                                                                          WHEEL_TICK_MILLIS, WHEEL_SIZE),
+                                                           this::expire));
+                }
+            }
+        }
+        return ledger;
+    }
+
+    // Tracks after the commit: a hold that is due by then expires right inside track, in a transaction of its own
+    private ReservationLedger recover(ReservationLedger reservations) {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        OffsetDateTime now = OffsetDateTime.now();
+        long expired;
+        List<StockReservationEntity> active;
+        try {
+            expired = reservationDao.deleteExpired(now);
+            active = reservationDao.findActive(now, NODE_ID);
+            session.getTransaction().commit();
+        } catch (RuntimeException e) {
+            rollback(session);
+            throw e;
+        }
+        active.forEach(reservation -> reservations.track(
+                reservation.getId(), reservation.getItem().getId(), reservation.getQuantity(),
+                Duration.between(OffsetDateTime.now(), reservation.getExpiresAt()).toMillis()));
+        log.info("Stock reservations recovered: {} active, {} expired while down", active.size(), expired);
+        return reservations;
+    }
+
+    private void expire(long reservationId) {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            reservationDao.deleteById(reservationId);
+            session.getTransaction().commit();
+        } catch (RuntimeException e) {
+            rollback(session);
+            // the row is picked up as expired by the next recovery
+            log.error("Expired reservation {} could not be deleted", reservationId, e);
+        }
+    }
+
+    private static void rollback(Session session) {
+        if (session.getTransaction().isActive()) {
+            session.getTransaction().rollback();
+        }
+    }
+
+    // Holds are expired by the node that took them; node.id has to be unique and stable across restarts
+    private static String nodeId() {
+        String nodeId = PropertiesUtil.getProperty("node.id", null);
+        if (nodeId != null) {
+            return nodeId;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Set node.id, the host name is not available", e);
+        }
+    }
+}
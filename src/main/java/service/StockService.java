@@ -0,0 +1,61 @@
+package service;
+
+import dao.StockMovementDao;
+import entity.StockMovementEntity;
+import entity.enums.StockMovementType;
+import exceptions.IncorrectQuantityException;
+import jakarta.inject.Inject;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.List;
+
+public class StockService {
+
+    private final SessionFactory sessionFactory;
+    private final StockMovementDao stockMovementDao;
+
+    @Inject
+    public StockService(SessionFactory sessionFactory, StockMovementDao stockMovementDao) {
+        this.sessionFactory = sessionFactory;
+        this.stockMovementDao = stockMovementDao;
+    }
+
+    public void restock(Long itemId, int quantity) {
+        if (quantity <= 0) {
+            throw new IncorrectQuantityException();
+        }
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        stockMovementDao.append(itemId, StockMovementType.RESTOCK, quantity);
+        session.getTransaction().commit();
+    }
+
+    // Stock count after an inventory check; returns the correction that was recorded
+    public int correct(Long itemId, long actualQuantity) {
+        if (actualQuantity < 0) {
+            throw new IncorrectQuantityException();
+        }
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        int delta = stockMovementDao.appendCorrection(itemId, actualQuantity);
+        session.getTransaction().commit();
+        return delta;
+    }
+
+    public long currentQuantity(Long itemId) {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        long quantity = stockMovementDao.balance(itemId);
+        session.getTransaction().commit();
+        return quantity;
+    }
+
+    public List<StockMovementEntity> recentMovements(Long itemId, long limit) {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        List<StockMovementEntity> movements = stockMovementDao.findByItem(itemId, limit);
+        session.getTransaction().commit();
+        return movements;
+    }
+}
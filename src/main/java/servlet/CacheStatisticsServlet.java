@@ -0,0 +1,41 @@
+package servlet;
+
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import service.CacheStatisticsService;
+import service.ItemsService;
+import utlis.JspHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Read-only view of second level cache regions and cached queries, used to size the regions. Deliberately not
+ * mapped: the shop has no admin role yet and cache internals must not reach customers. Map it to URL in web.xml,
+ * behind a security constraint, where an operator needs it.
+ */
+public class CacheStatisticsServlet extends HttpServlet {
+
+    public static final String URL = "/admin/cache";
+    public static final String REGIONS = "regions";
+    public static final String QUERIES = "queries";
+
+    @Inject
+    private CacheStatisticsService cacheStatisticsService;
+    @Inject
+    private ItemsService itemsService;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.setContentType("text/html");
+
+        req.setAttribute(REGIONS, cacheStatisticsService.regionStatistics());
+        req.setAttribute(QUERIES, itemsService.queryCacheStatistics());
+        req.getRequestDispatcher("/" + JspHelper.getUrl("cacheStatistics"))
+                .forward(req, resp);
+    }
+}
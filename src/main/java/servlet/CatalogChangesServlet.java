@@ -0,0 +1,78 @@
+package servlet;
+
+import dto.CatalogChangeDto;
+import dto.CatalogChangesDto;
+import dto.ItemsInfoDto;
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import service.ItemsService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+import static servlet.ItemsServlet.LIMIT;
+import static servlet.SuggestServlet.toJsonString;
+
+// Delta sync for the mobile apps: no `since` returns the whole catalog page by page, then only what changed
+@WebServlet(CatalogChangesServlet.URL)
+public class CatalogChangesServlet extends HttpServlet {
+
+    public static final String URL = "/api/items/changes";
+    public static final String SINCE = "since";
+
+    @Inject
+    private ItemsService itemsService;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.setContentType("application/json");
+
+        String limitParam = req.getParameter(LIMIT);
+        CatalogChangesDto changes;
+        try {
+            int limit = limitParam == null ? 100 : Integer.parseInt(limitParam);
+            changes = itemsService.findChangesSince(req.getParameter(SINCE), limit);
+        } catch (IllegalArgumentException e) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("{\"error\":" + toJsonString(String.valueOf(e.getMessage())) + "}");
+            return;
+        }
+        resp.getWriter()
+                .write("{\"changes\":" + changes.getChanges().stream()
+                        .map(CatalogChangesServlet::toJson)
+                        .collect(Collectors.joining(",", "[", "]"))
+                       + ",\"token\":" + toJsonString(changes.getToken())
+                       + ",\"hasMore\":" + changes.isHasMore() + "}");
+    }
+
+    private static String toJson(CatalogChangeDto change) {
+        StringBuilder json = new StringBuilder("{\"itemId\":").append(change.getItemId())
+                .append(",\"deleted\":").append(change.isDeleted());
+        if (!change.isDeleted()) {
+            ItemsInfoDto item = change.getItem();
+            json.append(",\"version\":").append(change.getVersion())
+                    .append(",\"item\":{")
+                    .append(field("model", item.getModel())).append(',')
+                    .append(field("brand", item.getBrand())).append(',')
+                    .append(field("color", item.getColor())).append(',')
+                    .append(field("os", item.getOs())).append(',')
+                    .append(field("image", item.getImage())).append(',')
+                    .append(field("internalMemory", item.getInternalMemory())).append(',')
+                    .append(field("ram", item.getRam())).append(',')
+                    .append(field("price", item.getPrice())).append(',')
+                    .append(field("currency", item.getCurrency()))
+                    .append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String field(String name, String value) {
+        return toJsonString(name) + ":" + (value == null ? "null" : toJsonString(value));
+    }
+}
@@ -1,6 +1,8 @@
 package servlet;
 
-import dto.ItemsInfoDto;
+import dto.ItemsPageDto;
+import dto.filter.AttributesFilter;
+import dto.filter.ItemsSort;
 import jakarta.inject.Inject;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -12,7 +14,7 @@ import utlis.JspHelper;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.Optional;
 
 @WebServlet("/items")
 public class ItemsServlet extends HttpServlet {
@@ -25,6 +27,12 @@ public class ItemsServlet extends HttpServlet {
     public static final String BRAND = "brand";
     public static final String PAGE = "page";
     public static final String LIMIT = "limit";
+    public static final String SORT = "sort";
+    public static final String AFTER = "after";
+    public static final String NEXT_CURSOR = "nextCursor";
+    public static final String PAGE_COUNT = "pageCount";
+    public static final String TOTAL_COUNT = "totalCount";
+    public static final String EXACT_COUNT = "exactCount";
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
@@ -40,11 +48,36 @@ public class ItemsServlet extends HttpServlet {
         if (pageParam != null && limitParam != null) {
             page= Integer.parseInt(pageParam);
             limit= Integer.parseInt(limitParam);
+        } else if (limitParam != null) {
+            limit = Integer.parseInt(limitParam);
         }
 
+        Optional<ItemsSort> sort = ItemsSort.from(req.getParameter(SORT));
+        if (sort.isPresent() && pageParam == null) {
+            ItemsPageDto itemsPage;
+            try {
+                itemsPage = itemsService.findItemsAfter(AttributesFilter.builder().build(), sort.get(),
+                                                        req.getParameter(AFTER), limit);
+            } catch (IllegalArgumentException e) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                return;
+            }
+            req.setAttribute(ITEMS, itemsPage.getItems());
+            req.setAttribute(NEXT_CURSOR, itemsPage.getNextCursor());
+            req.setAttribute(TOTAL_COUNT, itemsPage.getTotalCount());
+            req.setAttribute(EXACT_COUNT, itemsPage.isExactCount());
+            req.setAttribute(SORT, sort.get().name().toLowerCase());
+            req.setAttribute(LIMIT, limit);
+            req.getRequestDispatcher(JspHelper.getUrl("items"))
+                    .forward(req, resp);
+            return;
+        }
 
-        List<ItemsInfoDto> allWithOffsetAndLimit = itemsService.findAllWithOffsetAndLimit(page, limit);
-        req.setAttribute(ITEMS, allWithOffsetAndLimit);
+        ItemsPageDto itemsPage = itemsService.findItemsPage(AttributesFilter.builder().build(), page, limit);
+        req.setAttribute(ITEMS, itemsPage.getItems());
+        req.setAttribute(PAGE_COUNT, itemsPage.getPageCount());
+        req.setAttribute(TOTAL_COUNT, itemsPage.getTotalCount());
+        req.setAttribute(EXACT_COUNT, itemsPage.isExactCount());
         req.setAttribute(PAGE, page);
         req.setAttribute(LIMIT, limit);
         req.getRequestDispatcher(JspHelper.getUrl("items"))
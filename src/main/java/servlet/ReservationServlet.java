@@ -0,0 +1,79 @@
+package servlet;
+
+import dto.ReservationDto;
+import dto.personalAccount.ReadUserInfoDto;
+import exceptions.IncorrectQuantityException;
+import exceptions.ReservationExpiredException;
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import service.StockReservationService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import static servlet.SuggestServlet.toJsonString;
+
+// Checkout holds of the signed-in user: reserve takes itemId and quantity, confirm and cancel take the reservation id
+@WebServlet(ReservationServlet.URL)
+public class ReservationServlet extends HttpServlet {
+
+    public static final String URL = "/api/reservations";
+    public static final String ACTION = "action";
+    public static final String ID = "id";
+    public static final String ITEM_ID = "itemId";
+    public static final String QUANTITY = "quantity";
+
+    @Inject
+    private StockReservationService stockReservationService;
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.setContentType("application/json");
+
+        Object user = req.getSession().getAttribute(LoginServlet.USER);
+        if (!(user instanceof ReadUserInfoDto account)) {
+            error(resp, HttpServletResponse.SC_UNAUTHORIZED, "Sign in to reserve items");
+            return;
+        }
+        String action = req.getParameter(ACTION);
+        try {
+            Long userId = Long.valueOf(account.getId());
+            if (action == null || action.equals("reserve")) {
+                ReservationDto reservation = stockReservationService.reserve(
+                        Long.valueOf(req.getParameter(ITEM_ID)), userId,
+                        Integer.parseInt(req.getParameter(QUANTITY)));
+                resp.setStatus(HttpServletResponse.SC_CREATED);
+                resp.getWriter().write("{\"id\":" + reservation.getId()
+                                       + ",\"itemId\":" + reservation.getItemId()
+                                       + ",\"quantity\":" + reservation.getQuantity()
+                                       + ",\"expiresAt\":" + toJsonString(reservation.getExpiresAt().toString())
+                                       + "}");
+            } else if (action.equals("confirm")) {
+                Long saleId = stockReservationService.confirm(Long.valueOf(req.getParameter(ID)), userId);
+                resp.getWriter().write("{\"saleId\":" + saleId + "}");
+            } else if (action.equals("cancel")) {
+                boolean cancelled = stockReservationService.cancel(Long.valueOf(req.getParameter(ID)), userId);
+                resp.getWriter().write("{\"cancelled\":" + cancelled + "}");
+            } else {
+                error(resp, HttpServletResponse.SC_BAD_REQUEST, "Unknown action " + action);
+            }
+        } catch (NoSuchElementException e) {
+            error(resp, HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+        } catch (IncorrectQuantityException | ReservationExpiredException e) {
+            error(resp, HttpServletResponse.SC_CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            error(resp, HttpServletResponse.SC_BAD_REQUEST, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static void error(HttpServletResponse resp, int status, String message) throws IOException {
+        resp.setStatus(status);
+        resp.getWriter().write("{\"error\":" + toJsonString(message) + "}");
+    }
+}
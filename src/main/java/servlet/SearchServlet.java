@@ -0,0 +1,57 @@
+package servlet;
+
+import dto.ItemsPageDto;
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import service.ItemsService;
+import utlis.JspHelper;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static servlet.ItemsServlet.EXACT_COUNT;
+import static servlet.ItemsServlet.ITEMS;
+import static servlet.ItemsServlet.LIMIT;
+import static servlet.ItemsServlet.PAGE;
+import static servlet.ItemsServlet.PAGE_COUNT;
+import static servlet.ItemsServlet.TOTAL_COUNT;
+
+@WebServlet("/items/search")
+public class SearchServlet extends HttpServlet {
+
+    @Inject
+    private ItemsService itemsService;
+    public static final String QUERY = "q";
+    public static final String QUERY_ATTRIBUTE = "query";
+    public static final String QUERY_PARAM = "queryParam";
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        req.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.setContentType("text/html");
+
+        String query = req.getParameter(QUERY) == null ? "" : req.getParameter(QUERY).trim();
+        String pageParam = req.getParameter(PAGE);
+        String limitParam = req.getParameter(LIMIT);
+        int page = pageParam == null ? 1 : Integer.parseInt(pageParam);
+        int limit = limitParam == null ? 5 : Integer.parseInt(limitParam);
+
+        ItemsPageDto itemsPage = itemsService.searchItems(query, page, limit);
+        req.setAttribute(ITEMS, itemsPage.getItems());
+        req.setAttribute(PAGE_COUNT, itemsPage.getPageCount());
+        req.setAttribute(TOTAL_COUNT, itemsPage.getTotalCount());
+        req.setAttribute(EXACT_COUNT, itemsPage.isExactCount());
+        req.setAttribute(PAGE, page);
+        req.setAttribute(LIMIT, limit);
+        req.setAttribute(QUERY_ATTRIBUTE, query);
+        req.setAttribute(QUERY_PARAM, "&" + QUERY + "=" + URLEncoder.encode(query, StandardCharsets.UTF_8));
+        req.getRequestDispatcher("/" + JspHelper.getUrl("items"))
+                .forward(req, resp);
+    }
+}
@@ -0,0 +1,58 @@
+package servlet;
+
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import service.ItemsService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static servlet.ItemsServlet.LIMIT;
+import static servlet.SearchServlet.QUERY;
+
+@WebServlet("/items/suggest")
+public class SuggestServlet extends HttpServlet {
+
+    @Inject
+    private ItemsService itemsService;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        req.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.setContentType("application/json");
+
+        String limitParam = req.getParameter(LIMIT);
+        int limit = limitParam == null ? 10 : Integer.parseInt(limitParam);
+        List<String> suggestions = itemsService.suggestModels(req.getParameter(QUERY), limit);
+
+        resp.getWriter()
+                .write(suggestions.stream()
+                               .map(SuggestServlet::toJsonString)
+                               .collect(Collectors.joining(",", "[", "]")));
+    }
+
+    static String toJsonString(String value) {
+        StringBuilder json = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+}
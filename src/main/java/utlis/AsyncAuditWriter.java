@@ -0,0 +1,249 @@
+package utlis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.boot.internal.EnversService;
+import org.hibernate.envers.configuration.Configuration;
+import org.hibernate.envers.internal.revisioninfo.RevisionInfoGenerator;
+import org.hibernate.internal.SessionFactoryImpl;
+import utlis.jdbc.PropertiesUtil;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/*
+ * Moves audit change sets from the journal into the Envers tables. Every batch of up to BATCH_SIZE change sets is
+ * one transaction: a revision per change set, stamped with its commit time, and its *_AUD rows, all going out as
+ * JDBC batches. A change set waits at most LINGER_MILLIS for its batch to fill. A failed batch stays in the journal
+ * and is retried; whatever is in the journal when the session factory closes is written before it does, and a
+ * batch that still cannot be written is picked up again on the next start. Change sets are journaled before their
+ * transaction commits, so each one is written only once the database reports its transaction committed: a batch is
+ * written up to the first change set whose transaction is still committing, which stays at the head of the journal.
+ */
+@Slf4j
+public class AsyncAuditWriter implements SessionFactoryObserver {
+
+    public static final boolean ENABLED = "async".equalsIgnoreCase(
+            PropertiesUtil.getProperty("audit.mode", "sync"));
+    private static final int BATCH_SIZE = PropertiesUtil.getIntProperty("audit.writer.batch.size", 200);
+    private static final long LINGER_MILLIS = PropertiesUtil.getLongProperty("audit.writer.linger.millis", 200L);
+    private static final long IDLE_MILLIS = 1_000L;
+    private static final long MAX_RETRY_MILLIS = 30_000L;
+    private static final long COMMIT_POLL_MILLIS = 10L;
+    private static final long COMMIT_WARN_MILLIS = 5_000L;
+    private static final long SHUTDOWN_SECONDS = PropertiesUtil.getLongProperty("audit.writer.shutdown.seconds", 30L);
+    private static final Map<SessionFactory, AsyncAuditWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private final transient AuditJournal journal;
+    private final transient ToIntFunction<List<AuditChangeSet>> sink;
+    private final transient Thread thread;
+    private volatile boolean running = true;
+
+    AsyncAuditWriter(AuditJournal journal, ToIntFunction<List<AuditChangeSet>> sink) {
+        this.journal = journal;
+        this.sink = sink;
+        this.thread = new Thread(this::run, "audit-writer");
+        thread.setDaemon(true);
+    }
+
+    // One writer per session factory: a second one would poll the same journal
+    public static AsyncAuditWriter start(SessionFactory sessionFactory) {
+        return WRITERS.computeIfAbsent(sessionFactory, AsyncAuditWriter::create);
+    }
+
+    private static AsyncAuditWriter create(SessionFactory sessionFactory) {
+        var journal = new AuditJournal(Path.of(PropertiesUtil.getProperty("audit.journal.dir", "audit-journal")),
+                                       PropertiesUtil.getIntProperty("audit.journal.capacity", 10_000),
+                                       PropertiesUtil.getBooleanProperty("audit.journal.fsync", true),
+                                       PropertiesUtil.getLongProperty("audit.journal.max.bytes", 64L * 1024 * 1024));
+        var writer = new AsyncAuditWriter(journal, new EnversSink(sessionFactory));
+        sessionFactory.unwrap(SessionFactoryImpl.class).addObserver(writer);
+        writer.thread.start();
+        return writer;
+    }
+
+    // Called right before the business transaction commits; blocks while the journal is full
+    public void submit(byte[] changeSet) {
+        journal.append(changeSet);
+    }
+
+    private void run() {
+        long retryMillis = 100L;
+        AuditJournal.Entry committing = null;
+        long committingSince = 0L;
+        while (running || journal.waiting() > 0) {
+            List<AuditJournal.Entry> batch;
+            try {
+                batch = journal.poll(BATCH_SIZE, running ? LINGER_MILLIS : 0L, IDLE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            int written;
+            try {
+                written = sink.applyAsInt(batch.stream()
+                                                  .map(entry -> AuditChangeSet.fromBytes(entry.payload()))
+                                                  .toList());
+                journal.acknowledge(batch.subList(0, written));
+                retryMillis = 100L;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("{} audit change sets could not be written before shutdown, they stay in the journal",
+                              journal.waiting(), e);
+                    return;
+                }
+                log.error("Audit batch of {} change sets failed, retrying in {} ms", batch.size(), retryMillis, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(retryMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+                continue;
+            }
+            if (written == batch.size()) {
+                committing = null;
+                continue;
+            }
+            // the head of the journal is still committing, what follows it waits for it
+            AuditJournal.Entry head = batch.get(written);
+            long now = System.nanoTime();
+            if (head != committing) {
+                committing = head;
+                committingSince = now;
+            } else if (now - committingSince > TimeUnit.MILLISECONDS.toNanos(COMMIT_WARN_MILLIS)) {
+                log.warn("Audited transaction is still committing after {} ms, {} change sets wait behind it",
+                         COMMIT_WARN_MILLIS, journal.waiting());
+                committingSince = now;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(COMMIT_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    void stop() {
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("Audit writer did not finish within {} s, {} change sets stay in the journal", SHUTDOWN_SECONDS,
+                     journal.waiting());
+            return;
+        }
+        journal.close();
+    }
+
+    @Override
+    public void sessionFactoryClosing(SessionFactory factory) {
+        stop();
+        WRITERS.remove(factory);
+    }
+
+    // Does what Envers' own audit process does before commit, only for many transactions at once
+    private static final class EnversSink implements ToIntFunction<List<AuditChangeSet>> {
+
+        private static final String TRANSACTION_STATUS = """
+                select x, pg_xact_status(x::text::xid8) from unnest(?) as x""";
+
+        private final SessionFactory sessionFactory;
+        private final EnversService enversService;
+
+        private EnversSink(SessionFactory sessionFactory) {
+            this.sessionFactory = sessionFactory;
+            this.enversService = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EnversService.class);
+        }
+
+        // Returns how many change sets from the start of the list are dealt with: written, or dropped as rolled back
+        @Override
+        public int applyAsInt(List<AuditChangeSet> changeSets) {
+            Configuration config = enversService.getConfig();
+            RevisionInfoGenerator revisions = config.getRevisionInfo().getRevisionInfoGenerator();
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                try {
+                    Map<Long, String> statuses = statuses(session, changeSets.stream()
+                            .map(AuditChangeSet::transactionId)
+                            .collect(Collectors.toSet()));
+                    int resolved = 0;
+                    while (resolved < changeSets.size()
+                            && !"in progress".equals(statuses.get(changeSets.get(resolved).transactionId()))) {
+                        resolved++;
+                    }
+                    for (AuditChangeSet changeSet : changeSets.subList(0, resolved)) {
+                        String status = statuses.get(changeSet.transactionId());
+                        if ("aborted".equals(status)) {
+                            continue;
+                        }
+                        if (status == null) {
+                            log.warn("Status of transaction {} is no longer known, writing its audit change set",
+                                     changeSet.transactionId());
+                        }
+                        Object revision = revisions.generate();
+                        if (revision instanceof DefaultRevisionEntity defaultRevision) {
+                            defaultRevision.setTimestamp(changeSet.committedAt());
+                        }
+                        revisions.saveRevisionData(session, revision);
+                        for (AuditChangeSet.Change change : changeSet.changes()) {
+                            Map<String, Object> data = new HashMap<>(change.data());
+                            @SuppressWarnings("unchecked")
+                            Map<String, Object> originalId = new HashMap<>(
+                                    (Map<String, Object>) data.get(config.getOriginalIdPropertyName()));
+                            originalId.put(config.getRevisionFieldName(), revision);
+                            data.put(config.getOriginalIdPropertyName(), originalId);
+                            enversService.getAuditStrategy()
+                                    .perform(session, change.entityName(), config, change.id(), data, revision);
+                        }
+                    }
+                    session.getTransaction().commit();
+                    return resolved;
+                } catch (RuntimeException e) {
+                    if (session.getTransaction().isActive()) {
+                        session.getTransaction().rollback();
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        private static Map<Long, String> statuses(Session session, Set<Long> transactionIds) {
+            return session.doReturningWork(connection -> {
+                Map<Long, String> statuses = new HashMap<>();
+                try (PreparedStatement statement = connection.prepareStatement(TRANSACTION_STATUS)) {
+                    statement.setArray(1, connection.createArrayOf("bigint", transactionIds.toArray()));
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            statuses.put(resultSet.getLong(1), resultSet.getString(2));
+                        }
+                    }
+                }
+                return statuses;
+            });
+        }
+    }
+}
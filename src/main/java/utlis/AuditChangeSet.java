@@ -0,0 +1,40 @@
+package utlis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The audit rows of one transaction, as Envers would have written them minus the revision reference. It is
+ * journaled right before the commit, so transactionId (pg_current_xact_id) tells the writer whether the
+ * transaction committed after all.
+ */
+public record AuditChangeSet(long transactionId, long committedAt, List<Change> changes) implements Serializable {
+
+    public record Change(String entityName, Object id, Map<String, Object> data) implements Serializable {
+    }
+
+    public byte[] toBytes() {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(this);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Audit change set is not serializable", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static AuditChangeSet fromBytes(byte[] payload) {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (AuditChangeSet) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Audit journal record cannot be read", e);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package utlis;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/*
+ * Durable queue of audit change sets: an append-only journal file and a checkpoint file holding the offset up to
+ * which the records are in the database. A record is its length, a CRC32 of the payload and the payload; one cut
+ * short by a crash fails its check when the journal is opened and is cut off. At most `capacity` records are
+ * waiting at any time, appends block until the writer acknowledges older ones. Once the writer has caught up and
+ * the journal has grown past maxBytes it is truncated back to empty.
+ */
+@Slf4j
+public class AuditJournal implements Closeable {
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final FileChannel journal;
+    private final FileChannel checkpoint;
+    private final boolean fsync;
+    private final long maxBytes;
+    private final Semaphore capacity;
+    // guarded by this
+    private final ArrayDeque<Entry> waiting = new ArrayDeque<>();
+    private long end;
+    private long acknowledged;
+
+    public AuditJournal(Path directory, int capacity, boolean fsync, long maxBytes) {
+        this.fsync = fsync;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            journal = FileChannel.open(directory.resolve("audit.journal"), CREATE, READ, WRITE);
+            checkpoint = FileChannel.open(directory.resolve("audit.checkpoint"), CREATE, READ, WRITE);
+            acknowledged = readCheckpoint();
+            // the journal was truncated but the checkpoint not yet reset
+            if (acknowledged > journal.size()) {
+                acknowledged = 0;
+            }
+            end = recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Audit journal cannot be opened in " + directory, e);
+        }
+        if (!waiting.isEmpty()) {
+            log.info("{} audit change sets were not written before the last shutdown, writing them now", waiting.size());
+        }
+        this.capacity = new Semaphore(capacity - waiting.size());
+    }
+
+    // Returns once the record is on disk; blocks while the journal is full
+    public void append(byte[] payload) {
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in the audit journal", e);
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putLong(crc(payload))
+                .put(payload)
+                .flip();
+        synchronized (this) {
+            try {
+                write(journal, record, end);
+                if (fsync) {
+                    journal.force(false);
+                }
+            } catch (IOException e) {
+                capacity.release();
+                throw new UncheckedIOException("Audit change set cannot be appended to the journal", e);
+            }
+            end += record.limit();
+            waiting.add(new Entry(payload, end));
+            notifyAll();
+        }
+    }
+
+    /*
+     * Waits up to idleMillis for a first record, then up to lingerMillis more for the batch to fill. Records stay
+     * in the journal and are handed out again until they are acknowledged.
+     */
+    public synchronized List<Entry> poll(int maxRecords, long lingerMillis, long idleMillis)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        while (waiting.isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return List.of();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        while (waiting.size() < maxRecords) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        List<Entry> batch = new ArrayList<>(Math.min(maxRecords, waiting.size()));
+        for (Entry entry : waiting) {
+            if (batch.size() == maxRecords) {
+                break;
+            }
+            batch.add(entry);
+        }
+        return batch;
+    }
+
+    // The batch must be the head of the queue, as handed out by poll
+    public void acknowledge(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (int i = 0; i < batch.size(); i++) {
+                waiting.poll();
+            }
+            acknowledged = batch.get(batch.size() - 1).end();
+            try {
+                if (acknowledged == end && end >= maxBytes) {
+                    journal.truncate(0);
+                    journal.force(false);
+                    acknowledged = 0;
+                    end = 0;
+                }
+                writeCheckpoint(acknowledged);
+            } catch (IOException e) {
+                // the records are in the database already; at worst they are written once more after a restart
+                log.error("Audit journal checkpoint cannot be written", e);
+            }
+        }
+        capacity.release(batch.size());
+    }
+
+    public synchronized int waiting() {
+        return waiting.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            journal.close();
+            checkpoint.close();
+        } catch (IOException e) {
+            log.error("Audit journal cannot be closed", e);
+        }
+    }
+
+    // Queues every intact record after the checkpoint and cuts off a torn tail; returns the journal's new end
+    private long recover() throws IOException {
+        long position = acknowledged;
+        long size = journal.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            read(journal, header, position);
+            int length = header.flip().getInt();
+            long crc = header.getLong();
+            if (length < 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            read(journal, payload, position + HEADER_BYTES);
+            if (crc(payload.array()) != crc) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+            waiting.add(new Entry(payload.array(), position));
+        }
+        if (position < size) {
+            log.warn("Audit journal has {} unreadable bytes at its end, cutting them off", size - position);
+            journal.truncate(position);
+            journal.force(false);
+        }
+        return position;
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (checkpoint.size() < Long.BYTES) {
+            return 0;
+        }
+        ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+        read(checkpoint, offset, 0);
+        return offset.flip().getLong();
+    }
+
+    private void writeCheckpoint(long offset) throws IOException {
+        write(checkpoint, ByteBuffer.allocate(Long.BYTES).putLong(offset).flip(), 0);
+        checkpoint.force(false);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Audit journal ended in the middle of a record");
+            }
+            position += read;
+        }
+    }
+
+    private static long crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    public record Entry(byte[] payload, long end) {
+    }
+}
@@ -0,0 +1,49 @@
+package utlis;
+
+import dao.StockMovementDao;
+import index.SalesCube;
+import index.SpendersLeaderboard;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.internal.SessionFactoryImpl;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Starts the scheduled jobs of a session factory once, each only when its *.enabled flag is on, and forgets the
+ * factory when it closes; every job is an observer of the factory and stops its threads then. Jobs that work on
+ * shared tables should be enabled on one node only. Factories built for tests run none of them unless a test
+ * starts them itself.
+ */
+public class BackgroundJobs implements SessionFactoryObserver {
+
+    private static final Set<SessionFactory> STARTED = ConcurrentHashMap.newKeySet();
+
+    private BackgroundJobs() {
+    }
+
+    public static void start(SessionFactory sessionFactory) {
+        if (!STARTED.add(sessionFactory)) {
+            return;
+        }
+        sessionFactory.unwrap(SessionFactoryImpl.class).addObserver(new BackgroundJobs());
+        if (StockMovementDao.LEDGER && StockSnapshotter.ENABLED) {
+            StockSnapshotter.start(sessionFactory);
+        }
+        if (LeaderboardReconciler.ENABLED) {
+            LeaderboardReconciler.start(sessionFactory, SpendersLeaderboard.INSTANCE);
+        }
+        if (SalesCubeLoader.ENABLED) {
+            SalesCubeLoader.start(sessionFactory, SalesCube.INSTANCE);
+        }
+        if (SalesRollupRoller.ENABLED) {
+            SalesRollupRoller.start(sessionFactory);
+        }
+    }
+
+    @Override
+    public void sessionFactoryClosing(SessionFactory factory) {
+        STARTED.remove(factory);
+    }
+}
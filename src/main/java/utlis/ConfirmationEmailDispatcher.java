@@ -0,0 +1,205 @@
+package utlis;
+
+import dao.EmailOutboxDao;
+import dao.EmailOutboxDao.OutboxEmail;
+import exceptions.EmailSendException;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.internal.SessionFactoryImpl;
+import utlis.jdbc.PropertiesUtil;
+
+import javax.mail.SendFailedException;
+import javax.mail.internet.AddressException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/*
+ * Sends the confirmation emails queued in market.email_outbox. One poller claims due rows, never more than the
+ * sender pool has room for, and SENDER_THREADS senders talk to the SMTP server. A failed send is retried with
+ * exponential backoff, BACKOFF_BASE doubled per attempt up to BACKOFF_MAX; a rejected address, or MAX_ATTEMPTS
+ * failures, leaves the row FAILED with the last error. Delivery is at least once: a node that stops between the
+ * send and the status update sends the email again once the claim's LEASE runs out.
+ */
+@Slf4j
+public class ConfirmationEmailDispatcher implements SessionFactoryObserver {
+
+    public static final boolean ENABLED = PropertiesUtil.getBooleanProperty("email.confirmation.enabled", false);
+    private static final int SENDER_THREADS = PropertiesUtil.getIntProperty("email.sender.threads", 4);
+    private static final int QUEUE_CAPACITY = PropertiesUtil.getIntProperty("email.sender.queue.capacity", 100);
+    private static final long POLL_SECONDS = PropertiesUtil.getLongProperty("email.outbox.poll.seconds", 10L);
+    // longer than a send can take with the SMTP timeouts of EmailSender
+    private static final Duration LEASE = Duration.ofSeconds(
+            PropertiesUtil.getLongProperty("email.outbox.lease.seconds", 300L));
+    private static final int MAX_ATTEMPTS = PropertiesUtil.getIntProperty("email.outbox.max.attempts", 8);
+    private static final Duration BACKOFF_BASE = Duration.ofSeconds(
+            PropertiesUtil.getLongProperty("email.outbox.backoff.base.seconds", 30L));
+    private static final Duration BACKOFF_MAX = Duration.ofSeconds(
+            PropertiesUtil.getLongProperty("email.outbox.backoff.max.seconds", 3_600L));
+    private static final long SHUTDOWN_SECONDS = PropertiesUtil.getLongProperty("email.sender.shutdown.seconds", 10L);
+    private static final Map<SessionFactory, ConfirmationEmailDispatcher> DISPATCHERS = new ConcurrentHashMap<>();
+
+    private final transient SessionFactory sessionFactory;
+    private final transient Function<EntityManager, EmailOutboxDao> outbox;
+    private final transient Properties mailProperties;
+    private final transient AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final transient ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "email-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final transient ThreadPoolExecutor senders;
+
+    public ConfirmationEmailDispatcher(SessionFactory sessionFactory, Function<EntityManager, EmailOutboxDao> outbox,
+                                       Properties mailProperties) {
+        this.sessionFactory = sessionFactory;
+        this.outbox = outbox;
+        this.mailProperties = mailProperties;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(SENDER_THREADS, SENDER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                                              new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "email-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static ConfirmationEmailDispatcher start(SessionFactory sessionFactory) {
+        return DISPATCHERS.computeIfAbsent(sessionFactory, factory -> {
+            var dispatcher = new ConfirmationEmailDispatcher(factory, EmailOutboxDao::new,
+                                                             EmailSender.defaultTLSProperties());
+            factory.unwrap(SessionFactoryImpl.class).addObserver(dispatcher);
+            dispatcher.poller.scheduleWithFixedDelay(dispatcher::dispatchDue, 0L, POLL_SECONDS, TimeUnit.SECONDS);
+            return dispatcher;
+        });
+    }
+
+    // Called after a transaction that queued an email committed, so it goes out without waiting for the next poll
+    public void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            try {
+                poller.execute(() -> {
+                    wakeUpPending.set(false);
+                    dispatchDue();
+                });
+            } catch (RejectedExecutionException e) {
+                wakeUpPending.set(false);
+            }
+        }
+    }
+
+    // Claims the due emails and hands them to the senders; the sends finish in the background
+    public void dispatchDue() {
+        int room = senders.getQueue().remainingCapacity();
+        if (room == 0 || senders.isShutdown()) {
+            return;
+        }
+        List<OutboxEmail> claimed;
+        try {
+            claimed = inTransaction(dao -> dao.claimDue(room, LEASE));
+        } catch (RuntimeException e) {
+            log.error("Email outbox poll failed, due emails wait for the next poll", e);
+            return;
+        }
+        for (OutboxEmail email : claimed) {
+            try {
+                senders.execute(() -> send(email));
+            } catch (RejectedExecutionException e) {
+                log.warn("Email {} not sent before shutdown, it is retried when its claim runs out", email.id());
+            }
+        }
+    }
+
+    private void send(OutboxEmail email) {
+        try {
+            EmailSender.sendTLSEmail(mailProperties, email.recipient(), email.link());
+        } catch (EmailSendException e) {
+            recordFailure(email, e);
+            return;
+        }
+        try {
+            inTransaction(dao -> dao.markSent(email.id()));
+        } catch (RuntimeException e) {
+            log.error("Email {} was sent but not marked, it is sent again when its claim runs out", email.id(), e);
+        }
+    }
+
+    private void recordFailure(OutboxEmail email, EmailSendException exception) {
+        int attempts = email.attempts() + 1;
+        String error = exception.getCause() == null ? exception.getMessage() : exception.getCause().toString();
+        try {
+            if (attempts >= MAX_ATTEMPTS || isPermanent(exception)) {
+                inTransaction(dao -> dao.markFailed(email.id(), attempts, error));
+                log.error("Confirmation email {} failed for good after {} attempts: {}", email.id(), attempts, error);
+            } else {
+                Duration delay = backoff(attempts);
+                inTransaction(dao -> dao.retryLater(email.id(), attempts, error, delay));
+                log.warn("Confirmation email {} failed, attempt {} in {}: {}", email.id(), attempts + 1, delay, error);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failure of email {} not recorded, it is retried when its claim runs out", email.id(), e);
+        }
+    }
+
+    // The server refused the address itself; sending again would only get the same answer
+    private static boolean isPermanent(EmailSendException exception) {
+        Throwable cause = exception.getCause();
+        return cause instanceof AddressException
+               || cause instanceof SendFailedException sendFailed
+                  && sendFailed.getInvalidAddresses() != null && sendFailed.getInvalidAddresses().length > 0;
+    }
+
+    private static Duration backoff(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        Duration delay = BACKOFF_BASE.multipliedBy(1L << doublings);
+        return delay.compareTo(BACKOFF_MAX) > 0 ? BACKOFF_MAX : delay;
+    }
+
+    private <T> T inTransaction(Function<EmailOutboxDao, T> work) {
+        try (Session session = sessionFactory.openSession()) {
+            try {
+                session.beginTransaction();
+                T result = work.apply(outbox.apply(session));
+                session.getTransaction().commit();
+                return result;
+            } catch (RuntimeException e) {
+                if (session.getTransaction().isActive()) {
+                    session.getTransaction().rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    // Sends already handed to the senders get SHUTDOWN_SECONDS to finish and record their outcome
+    @Override
+    public void sessionFactoryClosing(SessionFactory factory) {
+        DISPATCHERS.remove(factory);
+        poller.shutdownNow();
+        senders.shutdown();
+        try {
+            if (!senders.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                senders.shutdownNow();
+                log.warn("Email senders did not finish in {} s, unsent emails are retried on the next start",
+                         SHUTDOWN_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            senders.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
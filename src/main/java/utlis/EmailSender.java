@@ -24,6 +24,8 @@ public class EmailSender {
     private static final String BODY = "To confirm your email, go to link below:\n%s";
     private static final String smtpPort = PropertiesUtil.getProperty("smtp.port");
     private static final String smtpHost = PropertiesUtil.getProperty("smtp.host");
+    // a server that stops answering must not hold a sender thread forever
+    private static final String smtpTimeoutMillis = PropertiesUtil.getProperty("smtp.timeout.millis", "10000");
 
 
     public static void sendPureEmail(Session session, String toEmail, String link) throws EmailSendException {
@@ -65,6 +67,9 @@ public class EmailSender {
         properties.put("mail.smtp.port", smtpPort);
         properties.put("mail.smtp.auth", Boolean.TRUE.toString());
         properties.put("mail.smtp.starttls.enable", Boolean.TRUE.toString());
+        properties.put("mail.smtp.connectiontimeout", smtpTimeoutMillis);
+        properties.put("mail.smtp.timeout", smtpTimeoutMillis);
+        properties.put("mail.smtp.writetimeout", smtpTimeoutMillis);
         return properties;
     }
 
@@ -0,0 +1,115 @@
+package utlis;
+
+import com.hazelcast.cache.HazelcastCachingProvider;
+import com.hazelcast.cache.impl.HazelcastServerCachingProvider;
+import com.hazelcast.config.CacheSimpleConfig;
+import com.hazelcast.config.CacheSimpleConfig.ExpiryPolicyFactoryConfig;
+import com.hazelcast.config.CacheSimpleConfig.ExpiryPolicyFactoryConfig.DurationConfig;
+import com.hazelcast.config.CacheSimpleConfig.ExpiryPolicyFactoryConfig.TimedExpiryPolicyFactoryConfig;
+import com.hazelcast.config.CacheSimpleConfig.ExpiryPolicyFactoryConfig.TimedExpiryPolicyFactoryConfig.ExpiryPolicyType;
+import com.hazelcast.config.ClasspathXmlConfig;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import lombok.experimental.UtilityClass;
+import utlis.jdbc.PropertiesUtil;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Second level cache regions described in application.properties:
+ *   cache.regions = items, accounts
+ *   cache.region.items.name = entity.ItemsEntity
+ *   cache.region.items.eviction.policy = LFU
+ *   cache.region.items.max.size = 10000
+ *   cache.region.items.ttl.seconds = 3600   (0 - entries never expire)
+ *   cache.region.items.statistics = true
+ */
+@UtilityClass
+public class HazelcastCacheRegions {
+
+    public static final String CACHE_MANAGER_SETTING = "hibernate.javax.cache.cache_manager";
+    private static final String INSTANCE_NAME = "market-repository-cache";
+    private static final String REGIONS = "cache.regions";
+    private static final String REGION = "cache.region.%s.%s";
+
+    private static volatile CacheManager cacheManager;
+    private static volatile HazelcastInstance instance;
+
+    // Hibernate closes the cache manager together with the session factory, so a closed one is replaced
+    public static CacheManager getCacheManager() {
+        if (cacheManager == null || cacheManager.isClosed()) {
+            synchronized (HazelcastCacheRegions.class) {
+                if (cacheManager == null || cacheManager.isClosed()) {
+                    instance = Hazelcast.getOrCreateHazelcastInstance(buildConfig());
+                    cacheManager = Caching.getCachingProvider(HazelcastServerCachingProvider.class.getName())
+                            .getCacheManager(URI.create(INSTANCE_NAME), HazelcastCacheRegions.class.getClassLoader(),
+                                             HazelcastCachingProvider.propertiesByInstanceItself(instance));
+                }
+            }
+        }
+        return cacheManager;
+    }
+
+    // Configured regions plus the ones Hibernate created on the fly with default settings
+    public static Set<String> regionNames() {
+        CacheManager manager = getCacheManager();
+        Set<String> names = new TreeSet<>(instance.getConfig().getCacheConfigs().keySet());
+        manager.getCacheNames().forEach(names::add);
+        return names;
+    }
+
+    static Config buildConfig() {
+        Config config = new ClasspathXmlConfig("hazelcast.xml");
+        config.setInstanceName(INSTANCE_NAME);
+        String regions = PropertiesUtil.getProperty(REGIONS);
+        if (regions != null) {
+            Arrays.stream(regions.split(","))
+                    .map(String::trim)
+                    .filter(alias -> !alias.isEmpty())
+                    .map(HazelcastCacheRegions::regionConfig)
+                    .forEach(config::addCacheConfig);
+        }
+        return config;
+    }
+
+    private static CacheSimpleConfig regionConfig(String alias) {
+        String name = required(alias, "name");
+        CacheSimpleConfig cacheConfig = new CacheSimpleConfig().setName(name)
+                .setStatisticsEnabled(Boolean.parseBoolean(property(alias, "statistics", "true")))
+                .setManagementEnabled(Boolean.parseBoolean(property(alias, "statistics", "true")))
+                .setEvictionConfig(new EvictionConfig()
+                                           .setEvictionPolicy(EvictionPolicy.valueOf(
+                                                   property(alias, "eviction.policy", "LRU")))
+                                           .setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+                                           .setSize(Integer.parseInt(property(alias, "max.size", "10000"))));
+        long ttlSeconds = Long.parseLong(property(alias, "ttl.seconds", "0"));
+        if (ttlSeconds > 0) {
+            cacheConfig.setExpiryPolicyFactoryConfig(new ExpiryPolicyFactoryConfig(
+                    new TimedExpiryPolicyFactoryConfig(ExpiryPolicyType.CREATED,
+                                                       new DurationConfig(ttlSeconds, TimeUnit.SECONDS))));
+        }
+        return cacheConfig;
+    }
+
+    private static String required(String alias, String key) {
+        String value = PropertiesUtil.getProperty(REGION.formatted(alias, key));
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException("Cache region " + alias + " has no " + key);
+        }
+        return value.trim();
+    }
+
+    private static String property(String alias, String key, String defaultValue) {
+        return PropertiesUtil.getProperty(REGION.formatted(alias, key), defaultValue);
+    }
+}
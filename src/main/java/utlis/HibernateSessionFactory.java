@@ -3,14 +3,26 @@ package utlis;
 import entity.ImportantStatisticEntity;
 import entity.ItemsEntity;
 import entity.PersonalAccountEntity;
+import index.ItemsFacetIndex;
+import index.ItemsInfoCache;
+import index.ItemsSearchIndex;
+import index.ModelSuggestIndex;
+import index.PriceSeriesCache;
+import index.SpendersLeaderboard;
+import listener.AuditCaptureListener;
+import listener.CatalogIndexListener;
+import listener.ImportantStatisticCounters;
 import listener.ImportantStatisticListener;
 import listener.ItemQuantityListener;
+import listener.SendAuthEmailListener;
+import listener.SpendersLeaderboardListener;
 import lombok.Cleanup;
 import lombok.experimental.UtilityClass;
 import org.hibernate.HibernateException;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.envers.boot.internal.EnversService;
 import org.hibernate.event.service.spi.EventListenerRegistry;
 import org.hibernate.event.spi.EventType;
 import org.hibernate.internal.SessionFactoryImpl;
@@ -28,21 +40,58 @@ public class HibernateSessionFactory {
     }
 
     public static void listenerRegistration(SessionFactory sessionFactory) {
+        listenerRegistration(sessionFactory, AsyncAuditWriter.ENABLED);
+    }
+
+    // asyncAudit has to match the configuration the factory was built from, see buildConfiguration
+    public static void listenerRegistration(SessionFactory sessionFactory, boolean asyncAudit) {
         var sessionFactoryImpl = sessionFactory.unwrap(SessionFactoryImpl.class);
         var service = sessionFactoryImpl.getServiceRegistry().getService(EventListenerRegistry.class);
         @Cleanup var session = sessionFactory.openSession();
-        service.appendListeners(EventType.POST_INSERT,
-                                new ImportantStatisticListener().createRowBeforeUseListener(session));
-        service.appendListeners(EventType.POST_UPDATE, new ImportantStatisticListener());
+        var importantStatisticListener = new ImportantStatisticListener(ImportantStatisticCounters.start(sessionFactory))
+                .createRowBeforeUseListener(session);
+        service.appendListeners(EventType.POST_COMMIT_INSERT, importantStatisticListener);
+        service.appendListeners(EventType.POST_COMMIT_UPDATE, importantStatisticListener);
         service.appendListeners(EventType.PRE_INSERT, new ItemQuantityListener());
+        if (asyncAudit) {
+            var auditCaptureListener = new AuditCaptureListener(
+                    sessionFactoryImpl.getServiceRegistry().getService(EnversService.class),
+                    AsyncAuditWriter.start(sessionFactory));
+            service.appendListeners(EventType.POST_INSERT, auditCaptureListener);
+            service.appendListeners(EventType.POST_UPDATE, auditCaptureListener);
+            service.appendListeners(EventType.POST_DELETE, auditCaptureListener);
+        }
+        if (ConfirmationEmailDispatcher.ENABLED) {
+            service.appendListeners(EventType.POST_INSERT,
+                                    new SendAuthEmailListener(ConfirmationEmailDispatcher.start(sessionFactory)));
+        }
+        var catalogIndexListener = new CatalogIndexListener(ItemsFacetIndex.INSTANCE, ItemsSearchIndex.INSTANCE,
+                                                             ModelSuggestIndex.INSTANCE, ItemsInfoCache.INSTANCE,
+                                                             PriceSeriesCache.INSTANCE).warmUp(session);
+        service.appendListeners(EventType.POST_COMMIT_INSERT, catalogIndexListener);
+        service.appendListeners(EventType.POST_COMMIT_UPDATE, catalogIndexListener);
+        service.appendListeners(EventType.POST_COMMIT_DELETE, catalogIndexListener);
+        var leaderboardListener = new SpendersLeaderboardListener(SpendersLeaderboard.INSTANCE);
+        service.appendListeners(EventType.POST_COMMIT_INSERT, leaderboardListener);
+        service.appendListeners(EventType.POST_COMMIT_DELETE, leaderboardListener);
     }
 
     public static Configuration buildConfiguration() {
+        return buildConfiguration(AsyncAuditWriter.ENABLED);
+    }
+
+    public static Configuration buildConfiguration(boolean asyncAudit) {
         Configuration configuration = new Configuration();
         configuration.addAnnotatedClass(ItemsEntity.class);
         configuration.addAnnotatedClass(PersonalAccountEntity.class);
         configuration.setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy());
         configuration.addAnnotatedClass(ImportantStatisticEntity.class);
+        // async audit writes the Envers tables from AsyncAuditWriter instead of inside every transaction
+        if (asyncAudit) {
+            configuration.setProperty("hibernate.envers.autoRegisterListeners", Boolean.FALSE.toString());
+        }
+        configuration.getProperties()
+                .put(HazelcastCacheRegions.CACHE_MANAGER_SETTING, HazelcastCacheRegions.getCacheManager());
         return configuration;
     }
 
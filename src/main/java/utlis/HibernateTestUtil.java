@@ -21,7 +21,12 @@ public class HibernateTestUtil {
     }
 
     public static SessionFactory getSessionFactory() {
-        Configuration configuration = HibernateSessionFactory.buildConfiguration();
+        return getSessionFactory(AsyncAuditWriter.ENABLED);
+    }
+
+    // audit.mode is sync for the tests; the ones of the async audit path build a factory of their own with it on
+    public static SessionFactory getSessionFactory(boolean asyncAudit) {
+        Configuration configuration = HibernateSessionFactory.buildConfiguration(asyncAudit);
         configuration.setProperty("hibernate.connection.url", testContainer.getJdbcUrl());
         configuration.setProperty("hibernate.connection.username", testContainer.getUsername());
         configuration.setProperty("hibernate.connection.password", testContainer.getPassword());
@@ -31,7 +36,7 @@ public class HibernateTestUtil {
 
         configuration.configure(PATH_TO_CFG.toFile());
         var sessionFactory = configuration.buildSessionFactory();
-        HibernateSessionFactory.listenerRegistration(sessionFactory);
+        HibernateSessionFactory.listenerRegistration(sessionFactory, asyncAudit);
         return sessionFactory;
     }
 }
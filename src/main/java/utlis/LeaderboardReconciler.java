@@ -0,0 +1,75 @@
+package utlis;
+
+import dao.SellHistoryDao;
+import index.SpendersLeaderboard;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.internal.SessionFactoryImpl;
+import utlis.jdbc.PropertiesUtil;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Loads the leaderboard once at startup and then periodically replaces its totals with the database's
+@Slf4j
+public class LeaderboardReconciler implements SessionFactoryObserver {
+
+    // every node that serves the leaderboard reconciles its own copy
+    public static final boolean ENABLED = PropertiesUtil.getBooleanProperty("leaderboard.reconcile.enabled", true);
+    private static final long INTERVAL_SECONDS = PropertiesUtil.getLongProperty(
+            "leaderboard.reconcile.interval.seconds", 600L);
+
+    private final transient SessionFactory sessionFactory;
+    private final transient SpendersLeaderboard leaderboard;
+    private final transient ScheduledExecutorService reconciliations =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "leaderboard-reconcile");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private LeaderboardReconciler(SessionFactory sessionFactory, SpendersLeaderboard leaderboard) {
+        this.sessionFactory = sessionFactory;
+        this.leaderboard = leaderboard;
+    }
+
+    public static LeaderboardReconciler start(SessionFactory sessionFactory, SpendersLeaderboard leaderboard) {
+        var reconciler = new LeaderboardReconciler(sessionFactory, leaderboard);
+        sessionFactory.unwrap(SessionFactoryImpl.class).addObserver(reconciler);
+        reconciler.reconcile();
+        reconciler.reconciliations.scheduleWithFixedDelay(reconciler::reconcile, INTERVAL_SECONDS, INTERVAL_SECONDS,
+                                                          TimeUnit.SECONDS);
+        return reconciler;
+    }
+
+    public void reconcile() {
+        try {
+            leaderboard.reconcile(this::loadTotals);
+        } catch (RuntimeException e) {
+            log.error("Leaderboard reconciliation failed, running totals are kept until the next run", e);
+        }
+    }
+
+    private Map<Long, Double> loadTotals() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            try {
+                Map<Long, Double> totals = new SellHistoryDao(session).getSpendingByUser();
+                session.getTransaction().commit();
+                return totals;
+            } catch (RuntimeException e) {
+                session.getTransaction().rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void sessionFactoryClosing(SessionFactory factory) {
+        reconciliations.shutdown();
+    }
+}
@@ -0,0 +1,195 @@
+package utlis;
+
+import dao.SalesRollupDao;
+import dao.SellHistoryDao;
+import dto.filter.CubeDimension;
+import index.SalesCube;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.internal.SessionFactoryImpl;
+import utlis.jdbc.PropertiesUtil;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * Fills the sales cube with a fork-join scan of sell_history, one month per leaf and session, and then appends the
+ * sales that arrived since the last load. Like the rollups it goes by transaction: a load takes the sales of every
+ * transaction below the horizon it read, and a refresh those between that horizon and the current one, so a sale
+ * whose transaction commits long after its sell_date is picked up by the first refresh after the commit.
+ */
+@Slf4j
+public class SalesCubeLoader implements SessionFactoryObserver {
+
+    // the cube lives in this node's memory, so it is loaded on every node that answers cube queries
+    public static final boolean ENABLED = PropertiesUtil.getBooleanProperty("sales.cube.enabled", true);
+    private static final long REFRESH_SECONDS = PropertiesUtil.getLongProperty("sales.cube.refresh.seconds", 60L);
+    private static final int LOAD_THREADS = PropertiesUtil.getIntProperty("sales.cube.load.threads", 4);
+
+    private final transient SessionFactory sessionFactory;
+    private final transient SalesCube cube;
+    private final transient ScheduledExecutorService refreshes = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sales-cube");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // horizon of the last load or refresh, only touched by the refresh thread
+    private String loadedUpTo;
+
+    private SalesCubeLoader(SessionFactory sessionFactory, SalesCube cube) {
+        this.sessionFactory = sessionFactory;
+        this.cube = cube;
+    }
+
+    public static SalesCubeLoader start(SessionFactory sessionFactory, SalesCube cube) {
+        var loader = new SalesCubeLoader(sessionFactory, cube);
+        sessionFactory.unwrap(SessionFactoryImpl.class).addObserver(loader);
+        loader.refreshes.execute(loader::load);
+        loader.refreshes.scheduleWithFixedDelay(loader::refresh, REFRESH_SECONDS, REFRESH_SECONDS, TimeUnit.SECONDS);
+        return loader;
+    }
+
+    private void load() {
+        try {
+            String horizon = inTransaction(session -> new SellHistoryDao(session).horizon());
+            // read after the horizon, so they cover every sale below it
+            Optional<Instant> firstSale = inTransaction(session -> new SalesRollupDao(session).firstSale());
+            Optional<Instant> lastSale = inTransaction(session -> new SalesRollupDao(session).lastSale());
+            List<Instant> months = new ArrayList<>();
+            if (firstSale.isPresent() && lastSale.isPresent()) {
+                Instant end = nextMonth(monthStart(lastSale.get()));
+                for (Instant month = monthStart(firstSale.get()); month.isBefore(end); month = nextMonth(month)) {
+                    months.add(month);
+                }
+                months.add(end);
+            }
+            ForkJoinPool pool = new ForkJoinPool(LOAD_THREADS);
+            try {
+                cube.replaceAll(pool.invoke(new LoadTask(months, horizon, 0, months.size() - 1)));
+            } finally {
+                pool.shutdown();
+            }
+            loadedUpTo = horizon;
+            log.info("Sales cube loaded with {} sales", cube.rowCount());
+        } catch (RuntimeException e) {
+            log.error("Sales cube could not be loaded, the next refresh retries", e);
+        }
+    }
+
+    private void refresh() {
+        if (loadedUpTo == null) {
+            load();
+            return;
+        }
+        try {
+            String from = loadedUpTo;
+            String horizon = inTransaction(session -> new SellHistoryDao(session).horizon());
+            if (Long.parseLong(horizon) <= Long.parseLong(from)) {
+                return;
+            }
+            cube.append(scan((dao, action) -> dao.forEachSaleFact(from, horizon, action)));
+            loadedUpTo = horizon;
+        } catch (RuntimeException e) {
+            log.error("Sales cube refresh failed, the sales are picked up by the next one", e);
+        }
+    }
+
+    private SalesCube.Segment scan(BiConsumer<SellHistoryDao, Consumer<SellHistoryDao.SaleFact>> sales) {
+        SalesCube.SegmentBuilder segment = cube.newSegment();
+        String[] values = new String[CubeDimension.values().length];
+        inTransaction(session -> {
+            sales.accept(new SellHistoryDao(session), sale -> {
+                values[CubeDimension.BRAND.ordinal()] = sale.brand();
+                values[CubeDimension.OS.ordinal()] = sale.os();
+                values[CubeDimension.MEMORY.ordinal()] = sale.memory();
+                values[CubeDimension.COUNTRY.ordinal()] = sale.country();
+                values[CubeDimension.CURRENCY.ordinal()] = sale.currency();
+                values[CubeDimension.MONTH.ordinal()] = YearMonth.from(sale.sellDate().atOffset(ZoneOffset.UTC))
+                        .toString();
+                segment.add(values, sale.quantity(), sale.revenue());
+            });
+            return null;
+        });
+        return segment.build();
+    }
+
+    private <T> T inTransaction(Function<Session, T> work) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            try {
+                T result = work.apply(session);
+                session.getTransaction().commit();
+                return result;
+            } catch (RuntimeException e) {
+                if (session.getTransaction().isActive()) {
+                    session.getTransaction().rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static Instant monthStart(Instant instant) {
+        return YearMonth.from(instant.atOffset(ZoneOffset.UTC)).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private static Instant nextMonth(Instant monthStart) {
+        return monthStart.atOffset(ZoneOffset.UTC).plusMonths(1).toInstant();
+    }
+
+    @Override
+    public void sessionFactoryClosing(SessionFactory factory) {
+        refreshes.shutdown();
+    }
+
+    // boundaries[from..to] are month starts and the final limit; each leaf scans the sales below horizon in one month
+    private final class LoadTask extends RecursiveTask<List<SalesCube.Segment>> {
+
+        private final List<Instant> boundaries;
+        private final String horizon;
+        private final int from;
+        private final int to;
+
+        private LoadTask(List<Instant> boundaries, String horizon, int from, int to) {
+            this.boundaries = boundaries;
+            this.horizon = horizon;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<SalesCube.Segment> compute() {
+            if (to - from <= 0) {
+                return new ArrayList<>();
+            }
+            if (to - from == 1) {
+                Instant monthStart = boundaries.get(from);
+                Instant monthEnd = boundaries.get(to);
+                List<SalesCube.Segment> segments = new ArrayList<>();
+                segments.add(scan((dao, action) -> dao.forEachSaleFact(monthStart, monthEnd, horizon, action)));
+                return segments;
+            }
+            int middle = (from + to) >>> 1;
+            LoadTask left = new LoadTask(boundaries, horizon, from, middle);
+            left.fork();
+            List<SalesCube.Segment> right = new LoadTask(boundaries, horizon, middle, to).compute();
+            List<SalesCube.Segment> segments = left.join();
+            segments.addAll(right);
+            return segments;
+        }
+    }
+}
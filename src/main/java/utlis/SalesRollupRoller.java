@@ -0,0 +1,135 @@
+package utlis;
+
+import dao.SalesRollupDao;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.internal.SessionFactoryImpl;
+import utlis.jdbc.PropertiesUtil;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+ * Keeps the sales rollups up to the transactions that have ended. On first start the watermark is put at the current
+ * horizon and the sales below it are backfilled in parallel chunks of whole days.
+ */
+@Slf4j
+public class SalesRollupRoller implements SessionFactoryObserver {
+
+    // the rollup tables are shared, one node keeps them up to date
+    public static final boolean ENABLED = PropertiesUtil.getBooleanProperty("sales.rollup.enabled", true);
+    private static final long INTERVAL_SECONDS = PropertiesUtil.getLongProperty("sales.rollup.interval.seconds", 60L);
+    private static final int BACKFILL_THREADS = PropertiesUtil.getIntProperty("sales.rollup.backfill.threads", 4);
+    private static final long BACKFILL_CHUNK_DAYS = PropertiesUtil.getLongProperty(
+            "sales.rollup.backfill.chunk.days", 7L);
+
+    private final transient SessionFactory sessionFactory;
+    private final transient ScheduledExecutorService rollUps = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sales-rollup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SalesRollupRoller(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public static SalesRollupRoller start(SessionFactory sessionFactory) {
+        var roller = new SalesRollupRoller(sessionFactory);
+        sessionFactory.unwrap(SessionFactoryImpl.class).addObserver(roller);
+        roller.rollUps.execute(roller::initialize);
+        roller.rollUps.scheduleWithFixedDelay(roller::rollUp, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return roller;
+    }
+
+    public void rollUp() {
+        try {
+            if (inTransaction(SalesRollupDao::rollUp)) {
+                log.debug("Sales rolled up");
+            }
+        } catch (RuntimeException e) {
+            log.error("Sales roll-up failed, the sales stay in the raw tail until the next run", e);
+        }
+    }
+
+    /*
+     * Rebuilds the whole days that [from, to) touches from the sales below the watermark, a chunk per session on
+     * BACKFILL_THREADS threads; e.g. after the rollup tables were lost. Returns the number of failed chunks.
+     */
+    public int backfill(Instant from, Instant to) {
+        Instant end = to.truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS);
+        ExecutorService workers = Executors.newFixedThreadPool(BACKFILL_THREADS);
+        List<Future<?>> chunks = new ArrayList<>();
+        try {
+            for (Instant day = from.truncatedTo(ChronoUnit.DAYS); day.isBefore(end); ) {
+                Instant chunkStart = day;
+                Instant chunkEnd = day.plus(BACKFILL_CHUNK_DAYS, ChronoUnit.DAYS);
+                Instant chunkEndClipped = chunkEnd.isBefore(end) ? chunkEnd : end;
+                chunks.add(workers.submit(() -> inTransaction(dao -> {
+                    dao.rebuild(chunkStart, chunkEndClipped);
+                    return null;
+                })));
+                day = chunkEndClipped;
+            }
+            int failed = 0;
+            for (Future<?> chunk : chunks) {
+                try {
+                    chunk.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.error("Sales rollup backfill chunk failed", e.getCause());
+                }
+            }
+            log.info("Sales rollups backfilled up to {} in {} chunks, {} failed", end, chunks.size(), failed);
+            return failed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return chunks.size();
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void initialize() {
+        try {
+            if (!inTransaction(SalesRollupDao::openWatermark)) {
+                return;
+            }
+            inTransaction(SalesRollupDao::firstSale).ifPresent(first -> backfill(first, Instant.now()));
+        } catch (RuntimeException e) {
+            log.error("Sales rollups could not be initialized", e);
+        }
+    }
+
+    private <T> T inTransaction(Function<SalesRollupDao, T> work) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            try {
+                T result = work.apply(new SalesRollupDao(session));
+                session.getTransaction().commit();
+                return result;
+            } catch (RuntimeException e) {
+                if (session.getTransaction().isActive()) {
+                    session.getTransaction().rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void sessionFactoryClosing(SessionFactory factory) {
+        rollUps.shutdown();
+    }
+}
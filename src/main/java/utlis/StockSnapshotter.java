@@ -0,0 +1,70 @@
+package utlis;
+
+import dao.StockSnapshotDao;
+import entity.ItemSalesInformationEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.internal.SessionFactoryImpl;
+import utlis.jdbc.PropertiesUtil;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Periodically folds the stock_movements ledger into stock_snapshot and the item_sales_information quantity column
+@Slf4j
+public class StockSnapshotter implements SessionFactoryObserver {
+
+    // the roll-up is serialized across nodes, but one node running it is enough
+    public static final boolean ENABLED = PropertiesUtil.getBooleanProperty("stock.snapshot.enabled", true);
+    private static final long INTERVAL_SECONDS = PropertiesUtil.getLongProperty("stock.snapshot.interval.seconds", 5L);
+
+    private final transient SessionFactory sessionFactory;
+    private final transient ScheduledExecutorService snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private StockSnapshotter(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public static StockSnapshotter start(SessionFactory sessionFactory) {
+        var snapshotter = new StockSnapshotter(sessionFactory);
+        sessionFactory.unwrap(SessionFactoryImpl.class).addObserver(snapshotter);
+        snapshotter.snapshots.scheduleWithFixedDelay(snapshotter::snapshot, INTERVAL_SECONDS, INTERVAL_SECONDS,
+                                                     TimeUnit.SECONDS);
+        return snapshotter;
+    }
+
+    public void snapshot() {
+        List<Long> changed;
+        try (Session session = sessionFactory.openSession()) {
+            try {
+                session.beginTransaction();
+                changed = new StockSnapshotDao(session).rollUp();
+                session.getTransaction().commit();
+            } catch (RuntimeException e) {
+                if (session.getTransaction().isActive()) {
+                    session.getTransaction().rollback();
+                }
+                log.error("Stock snapshot failed, movements stay pending until the next run", e);
+                return;
+            }
+        }
+        // the quantity column changed behind Hibernate's back
+        changed.forEach(id -> sessionFactory.getCache().evictEntityData(ItemSalesInformationEntity.class, id));
+        if (!changed.isEmpty()) {
+            log.debug("Stock snapshot updated {} items", changed.size());
+        }
+    }
+
+    @Override
+    public void sessionFactoryClosing(SessionFactory factory) {
+        snapshots.shutdown();
+    }
+}
@@ -0,0 +1,202 @@
+package utlis;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Hierarchical timing wheel: a task lands in a bucket of the finest level whose span covers its deadline and
+ * cascades down as the clock catches up. Only non-empty buckets sit in a DelayQueue, so the driver thread sleeps
+ * until the next bucket is due instead of ticking through empty slots; scheduling and cancelling are O(1).
+ */
+@Slf4j
+public class TimerWheel implements AutoCloseable {
+
+    private final DelayQueue<Bucket> dueBuckets = new DelayQueue<>();
+    private final Level wheel;
+    private final Thread driver;
+    private int size;
+
+    public TimerWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.wheel = new Level(tickMillis, wheelSize, now());
+        this.driver = new Thread(this::drive, name);
+        this.driver.setDaemon(true);
+        this.driver.start();
+    }
+
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, now() + Math.max(0, delayMillis));
+        boolean due;
+        synchronized (this) {
+            due = !wheel.add(timeout);
+            if (!due) {
+                size++;
+            }
+        }
+        if (due) {
+            run(timeout);
+        }
+        return timeout;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        driver.interrupt();
+    }
+
+    private void drive() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Bucket bucket = dueBuckets.take();
+                List<Timeout> expired = new ArrayList<>();
+                synchronized (this) {
+                    while (bucket != null) {
+                        wheel.advanceTo(bucket.expiration);
+                        for (Timeout timeout : bucket.drain()) {
+                            size--;
+                            if (!wheel.add(timeout)) {
+                                expired.add(timeout);
+                            } else {
+                                size++;
+                            }
+                        }
+                        bucket = dueBuckets.poll();
+                    }
+                }
+                expired.forEach(this::run);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Timeout timeout) {
+        if (timeout.cancelled) {
+            return;
+        }
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            log.error("Timer wheel task failed", e);
+        }
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    public final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private Bucket bucket;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        // false when the task has already fired or was cancelled before
+        public boolean cancel() {
+            synchronized (TimerWheel.this) {
+                if (cancelled || bucket == null) {
+                    return false;
+                }
+                cancelled = true;
+                bucket.timeouts.remove(this);
+                bucket = null;
+                size--;
+                return true;
+            }
+        }
+    }
+
+    // Guarded by the wheel's monitor, like the buckets below it
+    private final class Level {
+
+        private final long tickMillis;
+        private final long interval;
+        private final Bucket[] buckets;
+        private long currentTime;
+        private Level overflow;
+
+        private Level(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.interval = tickMillis * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+            this.currentTime = startMillis - startMillis % tickMillis;
+        }
+
+        // false means the deadline is within the current tick and the task is due right away
+        private boolean add(Timeout timeout) {
+            if (timeout.deadline < currentTime + tickMillis) {
+                timeout.bucket = null;
+                return false;
+            }
+            if (timeout.deadline < currentTime + interval) {
+                long virtualTick = timeout.deadline / tickMillis;
+                Bucket bucket = buckets[(int) (virtualTick % buckets.length)];
+                bucket.timeouts.add(timeout);
+                timeout.bucket = bucket;
+                if (bucket.expiration != virtualTick * tickMillis) {
+                    bucket.expiration = virtualTick * tickMillis;
+                    dueBuckets.offer(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(interval, buckets.length, currentTime);
+            }
+            return overflow.add(timeout);
+        }
+
+        private void advanceTo(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - timeMillis % tickMillis;
+                if (overflow != null) {
+                    overflow.advanceTo(currentTime);
+                }
+            }
+        }
+    }
+
+    private static final class Bucket implements Delayed {
+
+        private final Set<Timeout> timeouts = new LinkedHashSet<>();
+        private volatile long expiration = -1;
+
+        private List<Timeout> drain() {
+            List<Timeout> drained = new ArrayList<>(timeouts);
+            timeouts.clear();
+            expiration = -1;
+            return drained;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiration - now(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiration, ((Bucket) other).expiration);
+        }
+    }
+}
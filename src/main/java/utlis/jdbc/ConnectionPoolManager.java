@@ -29,8 +29,7 @@ public final class ConnectionPoolManager {
     }
 
     private static void createConnectionPool() {
-        String poolSize = PropertiesUtil.getProperty(SQL_CONNECTION_POOL_SIZE);
-        int size = poolSize == null ? 10 : Integer.parseInt(poolSize);
+        int size = PropertiesUtil.getIntProperty(SQL_CONNECTION_POOL_SIZE, 10);
         connectionPool = new ArrayBlockingQueue<>(size);
         sourceConnections = new ArrayList<>(size);
         for (int i = 0; i < size; i++) {
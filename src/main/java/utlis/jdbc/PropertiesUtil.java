@@ -20,4 +20,25 @@ public final class PropertiesUtil {
 			throw new NotFoundApplicationPropertiesFileException(e);
 		}
 	}
+
+	// A missing or blank property falls back to the default; values are trimmed
+	public String getProperty(String property, String defaultValue) {
+		String value = getProperty(property);
+		return value == null || value.isBlank() ? defaultValue : value.trim();
+	}
+
+	public int getIntProperty(String property, int defaultValue) {
+		String value = getProperty(property, null);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	public long getLongProperty(String property, long defaultValue) {
+		String value = getProperty(property, null);
+		return value == null ? defaultValue : Long.parseLong(value);
+	}
+
+	public boolean getBooleanProperty(String property, boolean defaultValue) {
+		String value = getProperty(property, null);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
 }
@@ -0,0 +1,76 @@
+<%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/fmt" prefix="fmt" %>
+<!DOCTYPE html>
+<html lang="en">
+<head>
+	<meta charset="UTF-8">
+	<title>Cache statistics</title>
+	<style>
+		table {
+			width: 100%;
+			border-collapse: collapse;
+		}
+		table, th, td {
+			border: 1px solid black;
+		}
+		th, td {
+			padding: 8px;
+			text-align: left;
+		}
+	</style>
+</head>
+<body>
+<h1>Cache regions</h1>
+<table>
+	<thead>
+	<tr>
+		<th>Region</th>
+		<th>Entries</th>
+		<th>Hits</th>
+		<th>Misses</th>
+		<th>Hit ratio</th>
+		<th>Evictions</th>
+		<th>Evictions / min</th>
+	</tr>
+	</thead>
+	<tbody>
+	<c:forEach var="region" items="${regions}">
+		<tr>
+			<td>${region.region}</td>
+			<td>${region.entryCount}</td>
+			<td>${region.hitCount}</td>
+			<td>${region.missCount}</td>
+			<td><fmt:formatNumber value="${region.hitRatio}" type="percent" maxFractionDigits="1"/></td>
+			<td>${region.evictionCount}</td>
+			<td><fmt:formatNumber value="${region.evictionsPerMinute}" maxFractionDigits="2"/></td>
+		</tr>
+	</c:forEach>
+	</tbody>
+</table>
+
+<h1>Cached queries</h1>
+<table>
+	<thead>
+	<tr>
+		<th>Query</th>
+		<th>Hits</th>
+		<th>Misses</th>
+		<th>Puts</th>
+		<th>Hit ratio</th>
+	</tr>
+	</thead>
+	<tbody>
+	<c:forEach var="query" items="${queries}">
+		<tr>
+			<td><c:out value="${query.query}"/></td>
+			<td>${query.hitCount}</td>
+			<td>${query.missCount}</td>
+			<td>${query.putCount}</td>
+			<td><fmt:formatNumber value="${query.hitRatio}" type="percent" maxFractionDigits="1"/></td>
+		</tr>
+	</c:forEach>
+	</tbody>
+</table>
+</body>
+</html>
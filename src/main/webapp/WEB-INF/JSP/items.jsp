@@ -22,6 +22,13 @@
 </head>
 <body>
 <h1>Items List</h1>
+<form action="${pageContext.request.contextPath}/items/search" method="get">
+	<input type="search" name="q" value="<c:out value='${query}'/>" placeholder="galaxy 256 black">
+	<input type="submit" value="Search">
+</form>
+<c:if test="${not empty totalCount}">
+	<p>${exactCount ? '' : '~'}${totalCount} items</p>
+</c:if>
 <table>
 	<thead>
 	<tr>
@@ -53,26 +60,53 @@
 	</tbody>
 </table>
 
+<c:if test="${not empty sort}">
+<div>
+	<a href="?sort=${sort}&limit=${limit}">First</a>
+	<c:choose>
+		<c:when test="${not empty nextCursor}">
+			<a href="?sort=${sort}&after=${nextCursor}&limit=${limit}">Next</a>
+		</c:when>
+		<c:otherwise>
+			Next
+		</c:otherwise>
+	</c:choose>
+</div>
+</c:if>
+<c:if test="${empty sort}">
 <div>
 	<c:choose>
 		<c:when test="${page > 1}">
-			<a href="?page=${page - 1}&limit=${limit}">Previous</a>
+			<a href="?page=${page - 1}&limit=${limit}${queryParam}">Previous</a>
 		</c:when>
 		<c:otherwise>
 			Previous
 		</c:otherwise>
 	</c:choose>
 
-	<span>Page ${page}</span>
+	<span>Page ${page}<c:if test="${pageCount > 0}"> of ${exactCount ? '' : '~'}${pageCount}</c:if></span>
+
+	<c:forEach var="number" begin="${page > 3 ? page - 3 : 1}"
+			   end="${page + 3 < pageCount ? page + 3 : pageCount}">
+		<c:choose>
+			<c:when test="${number == page}">
+				<b>${number}</b>
+			</c:when>
+			<c:otherwise>
+				<a href="?page=${number}&limit=${limit}${queryParam}">${number}</a>
+			</c:otherwise>
+		</c:choose>
+	</c:forEach>
 
 	<c:choose>
 		<c:when test="${items.size() == limit}">
-			<a href="?page=${page + 1}&limit=${limit}">Next</a>
+			<a href="?page=${page + 1}&limit=${limit}${queryParam}">Next</a>
 		</c:when>
 		<c:otherwise>
 			Next
 		</c:otherwise>
 	</c:choose>
 </div>
+</c:if>
 </body>
 </html>
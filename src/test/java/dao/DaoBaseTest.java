@@ -0,0 +1,149 @@
+package dao;
+
+import dto.BatchReportDto;
+import dto.MultiGetResultDto;
+import entity.ItemsEntity;
+import entity.StockReservationEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.CacheMode;
+import org.hibernate.MultiIdentifierLoadAccess;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "DaoBase")
+public class DaoBaseTest {
+
+    private final EntityManager entityManager = mock(EntityManager.class, RETURNS_DEEP_STUBS);
+
+    @Tag("Unit")
+    @Test
+    void insertAll_moreThanOneBatch_flushesAndClearsAfterEveryBatch() {
+        batchSize(50);
+        List<StockReservationEntity> reservations = Stream.generate(() -> StockReservationEntity.builder().build())
+                .limit(120)
+                .toList();
+
+        BatchReportDto report = new StockReservationDao(entityManager).insertAll(reservations);
+
+        assertThat(report.getProcessed()).isEqualTo(120);
+        assertThat(report.getBatchCount()).isEqualTo(3);
+        verify(entityManager, times(120)).persist(any(StockReservationEntity.class));
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Tag("Unit")
+    @Test
+    void deleteAllById_notAudited_oneBulkDeletePerBatch() {
+        batchSize(2);
+        Query query = mock(Query.class);
+        when(entityManager.getMetamodel().entity(StockReservationEntity.class).getName())
+                .thenReturn("StockReservationEntity");
+        when(entityManager.createQuery(anyString())).thenReturn(query);
+        when(query.setParameter(eq("ids"), any())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(2, 0);
+
+        BatchReportDto report = new StockReservationDao(entityManager).deleteAllById(List.of(1L, 2L, 3L));
+
+        assertThat(report.getProcessed()).isEqualTo(2);
+        assertThat(report.getBatchCount()).isEqualTo(2);
+        verify(entityManager, times(2)).createQuery("delete from StockReservationEntity e where e.id in :ids");
+        verify(query).setParameter("ids", List.of(1L, 2L));
+        verify(query).setParameter("ids", List.of(3L));
+        verify(query, times(2)).executeUpdate();
+    }
+
+    @Tag("Unit")
+    @Test
+    void deleteAllById_audited_removesThroughSession() {
+        batchSize(50);
+        Session session = mock(Session.class, RETURNS_DEEP_STUBS);
+        List<Long> ids = LongStream.rangeClosed(1, 3).boxed().toList();
+        ItemsEntity item = ItemsEntity.builder().build();
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.byMultipleIds(ItemsEntity.class).multiLoad(ids)).thenReturn(Arrays.asList(item, null, item));
+
+        BatchReportDto report = new ItemsDao(entityManager).deleteAllById(ids);
+
+        assertThat(report.getProcessed()).isEqualTo(2);
+        verify(entityManager, never()).createQuery(anyString());
+        verify(entityManager, times(2)).remove(item);
+        verify(entityManager).flush();
+    }
+
+    @Tag("Unit")
+    @Test
+    void getAllByIds_moreThanOneChunk_oneLoadPerChunkInRequestOrder() {
+        int chunk = DaoBase.MULTI_GET_CHUNK_SIZE;
+        MultiIdentifierLoadAccess<ItemsEntity> loadAccess = itemsLoadAccess();
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 2L * chunk + 1).boxed().toList());
+        ids.add(null);
+        ids.add(1L);
+
+        MultiGetResultDto<Long, ItemsEntity> result = new ItemsDao(entityManager).getAllByIds(ids);
+
+        verify(loadAccess).multiLoad(LongStream.rangeClosed(1, chunk).boxed().toList());
+        verify(loadAccess).multiLoad(LongStream.rangeClosed(chunk + 1, 2L * chunk).boxed().toList());
+        verify(loadAccess).multiLoad(List.of(2L * chunk + 1));
+        verify(loadAccess, times(3)).multiLoad(anyList());
+        verify(loadAccess).with(CacheMode.NORMAL);
+        verify(loadAccess).enableOrderedReturn(true);
+        assertThat(result.getFound()).extracting(ItemsEntity::getId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 2L * chunk + 1)
+                                                   .filter(id -> id % 7 != 0)
+                                                   .boxed()
+                                                   .toList());
+        assertThat(result.getMissingIds()).allMatch(id -> id % 7 == 0)
+                .hasSize((2 * chunk + 1) / 7);
+    }
+
+    @Tag("Unit")
+    @Test
+    void getAllByIds_exactlyOneChunk_singleLoad() {
+        int chunk = DaoBase.MULTI_GET_CHUNK_SIZE;
+        MultiIdentifierLoadAccess<ItemsEntity> loadAccess = itemsLoadAccess();
+        List<Long> ids = LongStream.rangeClosed(1, chunk).boxed().toList();
+
+        MultiGetResultDto<Long, ItemsEntity> result = new ItemsDao(entityManager).getAllByIds(ids);
+
+        verify(loadAccess).multiLoad(ids);
+        verify(loadAccess, times(1)).multiLoad(anyList());
+        assertThat(result.getFound()).hasSize(chunk - chunk / 7);
+    }
+
+    // Every seventh id does not exist; the rest load in the order asked for
+    @SuppressWarnings("unchecked")
+    private MultiIdentifierLoadAccess<ItemsEntity> itemsLoadAccess() {
+        Session session = mock(Session.class);
+        MultiIdentifierLoadAccess<ItemsEntity> loadAccess = mock(MultiIdentifierLoadAccess.class, RETURNS_SELF);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.byMultipleIds(ItemsEntity.class)).thenReturn(loadAccess);
+        doAnswer(invocation -> ((List<Long>) invocation.getArgument(0)).stream()
+                .map(id -> id % 7 == 0 ? null : ItemsEntity.builder().id(id).build())
+                .toList())
+                .when(loadAccess).multiLoad(anyList());
+        return loadAccess;
+    }
+
+    private void batchSize(int size) {
+        when(entityManager.getEntityManagerFactory().getProperties())
+                .thenReturn(Map.of(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(size)));
+    }
+}
@@ -1,5 +1,6 @@
 package dao;
 
+import dto.ItemsInfoDto;
 import dto.filter.AttributesFilter;
 import entity.ItemSalesInformationEntity;
 import entity.ItemsEntity;
@@ -10,6 +11,7 @@ import entity.enums.CountryEnum;
 import entity.enums.CurrencyEnum;
 import entity.enums.GenderEnum;
 import extentions.DaoTestResolver;
+import mapper.ItemsInfoMapper;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.Tag;
@@ -168,6 +170,31 @@ public class ItemsDaoTest {
         assertThat(itemsWithFiltering.get(0)).isEqualTo(expected);
     }
 
+    @Test
+    void findItemsInfoWithParameters_projection_sameAsMappedEntityAndNotManaged() {
+        List<ItemsEntity> items = EntityHandler.getItemsEntities();
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        persistEntitiesList(items, session);
+        AttributesFilter filter = AttributesFilter.builder()
+                .brand(APPLE)
+                .os(IOS)
+                .internalMemory(GB_512)
+                .ram(GB_8)
+                .build();
+        session.clear();
+        List<ItemsEntity> entities = itemsDao.findItemsWithParameters(filter, 1, 3);
+        session.clear();
+        List<ItemsInfoDto> projected = itemsDao.findItemsInfoWithParameters(filter, 1, 3);
+        boolean anythingManaged = !session.getStatistics().getEntityKeys().isEmpty();
+        session.getTransaction()
+                .commit();
+        assertThat(projected).containsExactlyElementsOf(entities.stream()
+                                                                .map(ItemsInfoMapper.INSTANCE::toDto)
+                                                                .toList());
+        assertThat(anythingManaged).isFalse();
+    }
+
 
     public static Stream<Arguments> argumentsSellHistory() {
         return Stream.of(Arguments.of(SellHistoryEntity.builder()
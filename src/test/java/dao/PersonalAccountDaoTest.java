@@ -123,6 +123,15 @@ public class PersonalAccountDaoTest extends DaoTestFields {
         session.getTransaction().commit();
     }
 
+    @Tag("Unit")
+    @Test
+    void streamAllWithPhonePurchases_haveUsers_eachUserOnce() {
+        try (var accounts = personalAccountDao.streamAllWithPhonePurchases()) {
+            assertThat(accounts.toList()).hasSameElementsAs(personalAccountEntities)
+                    .doesNotHaveDuplicates();
+        }
+    }
+
 
     @Tag("Unit")
     @ParameterizedTest
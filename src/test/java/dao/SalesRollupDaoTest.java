@@ -0,0 +1,76 @@
+package dao;
+
+import dao.SalesRollupDao.Plan;
+import dao.SalesRollupDao.Window;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "SalesRollupDao")
+public class SalesRollupDaoTest {
+
+    @Tag("Unit")
+    @Test
+    void plan_rangeOverSeveralDays_daysHoursAndRawEdges() {
+        Plan plan = Plan.of(at("2024-03-01T10:15:00Z"), at("2024-03-05T18:40:00Z"));
+
+        assertThat(plan.getHeadRaw()).isEqualTo(window("2024-03-01T10:15:00Z", "2024-03-01T11:00:00Z"));
+        assertThat(plan.getHeadHours()).isEqualTo(window("2024-03-01T11:00:00Z", "2024-03-02T00:00:00Z"));
+        assertThat(plan.getDays()).isEqualTo(window("2024-03-02T00:00:00Z", "2024-03-05T00:00:00Z"));
+        assertThat(plan.getTailHours()).isEqualTo(window("2024-03-05T00:00:00Z", "2024-03-05T18:00:00Z"));
+        assertThat(plan.getTailRaw()).isEqualTo(window("2024-03-05T18:00:00Z", "2024-03-05T18:40:00Z"));
+        assertThat(plan.getRolledUp()).isEqualTo(window("2024-03-01T11:00:00Z", "2024-03-05T18:00:00Z"));
+    }
+
+    @Tag("Unit")
+    @Test
+    void plan_rangeWithinOneDay_hoursOnly() {
+        Plan plan = Plan.of(at("2024-03-01T10:00:00Z"), at("2024-03-01T13:30:00Z"));
+
+        assertThat(plan.getHeadHours()).isEqualTo(window("2024-03-01T10:00:00Z", "2024-03-01T13:00:00Z"));
+        assertThat(plan.getTailRaw()).isEqualTo(window("2024-03-01T13:00:00Z", "2024-03-01T13:30:00Z"));
+        assertThat(plan.getRolledUp()).isEqualTo(window("2024-03-01T10:00:00Z", "2024-03-01T13:00:00Z"));
+        assertThat(empty(plan.getDays())).isTrue();
+        assertThat(empty(plan.getTailHours())).isTrue();
+        assertThat(empty(plan.getHeadRaw())).isTrue();
+    }
+
+    @Tag("Unit")
+    @Test
+    void plan_rangeWithinOneHour_everythingRaw() {
+        Plan plan = Plan.of(at("2024-03-01T10:05:00Z"), at("2024-03-01T10:55:00Z"));
+
+        assertThat(plan.getHeadRaw()).isEqualTo(window("2024-03-01T10:05:00Z", "2024-03-01T10:55:00Z"));
+        assertThat(empty(plan.getDays())).isTrue();
+        assertThat(empty(plan.getHeadHours())).isTrue();
+        assertThat(empty(plan.getTailHours())).isTrue();
+        assertThat(empty(plan.getTailRaw())).isTrue();
+        assertThat(empty(plan.getRolledUp())).isTrue();
+    }
+
+    @Tag("Unit")
+    @Test
+    void plan_endBeforeStart_throws() {
+        assertThatThrownBy(() -> Plan.of(at("2024-03-02T00:00:00Z"), at("2024-03-01T00:00:00Z")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static boolean empty(Window window) {
+        return window.getFrom().equals(window.getTo());
+    }
+
+    private static Window window(String from, String to) {
+        return Window.of(at(from), at(to));
+    }
+
+    private static Instant at(String instant) {
+        return Instant.parse(instant);
+    }
+}
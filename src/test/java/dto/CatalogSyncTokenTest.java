@@ -0,0 +1,35 @@
+package dto;
+
+import dto.filter.CatalogSyncToken;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+@Tag(value = "CatalogSyncToken")
+public class CatalogSyncTokenTest {
+
+    @Tag("Unit")
+    @Test
+    void encodeDecode_token_sameToken() {
+        CatalogSyncToken token = CatalogSyncToken.of(5_000_000_123L, 42L);
+
+        assertThat(CatalogSyncToken.decode(token.encode())).contains(token);
+    }
+
+    @Tag("Unit")
+    @Test
+    void decode_noToken_start() {
+        assertThat(CatalogSyncToken.decode(null)).contains(CatalogSyncToken.START);
+        assertThat(CatalogSyncToken.decode(" ")).contains(CatalogSyncToken.START);
+    }
+
+    @Tag("Unit")
+    @Test
+    void decode_brokenToken_empty() {
+        assertThat(CatalogSyncToken.decode("not a token")).isEmpty();
+    }
+}
@@ -0,0 +1,50 @@
+package dto;
+
+import dto.filter.ItemsCursor;
+import dto.filter.ItemsSort;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+@Tag(value = "ItemsCursor")
+public class ItemsCursorTest {
+
+    @Tag("Unit")
+    @Test
+    void encodeDecode_modelWithSeparator_sameCursor() {
+        ItemsCursor cursor = ItemsCursor.of(ItemsSort.MODEL, 42L, "Galaxy S23: Ultra");
+
+        ItemsCursor decoded = ItemsCursor.decode(cursor.encode()).get();
+
+        assertThat(decoded).isEqualTo(cursor);
+    }
+
+    @Tag("Unit")
+    @Test
+    void encodeDecode_newestWithoutKey_sameCursor() {
+        ItemsCursor cursor = ItemsCursor.of(ItemsSort.NEWEST, 7L, null);
+
+        assertThat(ItemsCursor.decode(cursor.encode())).contains(cursor);
+    }
+
+    @Tag("Unit")
+    @Test
+    void decode_brokenCursor_empty() {
+        assertThat(ItemsCursor.decode("not a cursor")).isEmpty();
+        assertThat(ItemsCursor.decode(null)).isEmpty();
+    }
+
+    @Tag("Unit")
+    @Test
+    void decode_priceCursorWithTamperedKey_empty() {
+        ItemsCursor tampered = ItemsCursor.of(ItemsSort.PRICE, 7L, "cheap");
+
+        assertThat(ItemsCursor.decode(tampered.encode())).isEmpty();
+        assertThat(ItemsCursor.decode(ItemsCursor.of(ItemsSort.PRICE, 7L, "NaN").encode())).isEmpty();
+        assertThat(ItemsCursor.decode(ItemsCursor.of(ItemsSort.PRICE, 7L, null).encode())).isPresent();
+    }
+}
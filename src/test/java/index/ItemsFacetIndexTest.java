@@ -0,0 +1,111 @@
+package index;
+
+import dto.FacetCountsDto;
+import dto.ItemsPageDto;
+import dto.filter.FacetFilter;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import entity.enums.Attributes;
+import entity.enums.CurrencyEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+
+import static entity.enums.Attributes.BrandEnum.APPLE;
+import static entity.enums.Attributes.BrandEnum.SAMSUNG;
+import static entity.enums.Attributes.BrandEnum.XIAOMI;
+import static entity.enums.Attributes.OperatingSystemEnum.ANDROID;
+import static entity.enums.Attributes.OperatingSystemEnum.IOS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "ItemsFacetIndex")
+public class ItemsFacetIndexTest {
+
+    private final ItemsFacetIndex index = new ItemsFacetIndex();
+
+    @BeforeEach
+    void fillIndex() {
+        index.rebuild(List.of(item(1L, APPLE, IOS, Attributes.RamEnum.GB_8, "iPhone 14"),
+                              item(2L, SAMSUNG, ANDROID, Attributes.RamEnum.GB_8, "Galaxy S23"),
+                              item(3L, SAMSUNG, ANDROID, Attributes.RamEnum.GB_12, "Galaxy S23 Ultra"),
+                              item(4L, XIAOMI, ANDROID, Attributes.RamEnum.GB_8, "13T")));
+    }
+
+    @Tag("Unit")
+    @Test
+    void find_brandsOrRamAnd_matchingItems() {
+        FacetFilter filter = FacetFilter.builder()
+                .brand(SAMSUNG)
+                .brand(XIAOMI)
+                .ram(Attributes.RamEnum.GB_8)
+                .build();
+
+        ItemsPageDto page = index.find(filter, 1, 10);
+
+        assertThat(page.getTotalCount()).isEqualTo(2L);
+        assertThat(page.getItems()).extracting("model")
+                .containsExactly("Galaxy S23", "13T");
+    }
+
+    @Tag("Unit")
+    @Test
+    void find_secondPage_offsetApplied() {
+        ItemsPageDto page = index.find(FacetFilter.builder().build(), 2, 3);
+
+        assertThat(page.getPageCount()).isEqualTo(2L);
+        assertThat(page.getItems()).extracting("model")
+                .containsExactly("13T");
+    }
+
+    @Tag("Unit")
+    @Test
+    void facetCounts_brandSelected_otherBrandsStillCounted() {
+        FacetCountsDto counts = index.facetCounts(FacetFilter.builder()
+                                                          .brand(SAMSUNG)
+                                                          .build());
+
+        assertThat(counts.getBrands()).containsEntry("Samsung", 2)
+                .containsEntry("Apple", 1)
+                .containsEntry("Xiaomi", 1);
+        assertThat(counts.getOperatingSystems()).containsEntry("Android", 2)
+                .containsEntry("iOS", 0);
+    }
+
+    @Tag("Unit")
+    @Test
+    void index_updatedAndRemovedItems_bitmapsFollowChanges() {
+        index.index(item(2L, APPLE, IOS, Attributes.RamEnum.GB_8, "iPhone 15"));
+        index.remove(4L);
+
+        FacetCountsDto counts = index.facetCounts(FacetFilter.builder().build());
+
+        assertThat(counts.getBrands()).containsEntry("Apple", 2)
+                .containsEntry("Samsung", 1)
+                .containsEntry("Xiaomi", 0);
+        assertThat(index.count(FacetFilter.builder()
+                                       .operatingSystem(ANDROID)
+                                       .build())).isEqualTo(1L);
+    }
+
+    private static ItemsEntity item(Long id, Attributes.BrandEnum brand, Attributes.OperatingSystemEnum os,
+                                    Attributes.RamEnum ram, String model) {
+        return ItemsEntity.builder()
+                .id(id)
+                .brand(brand)
+                .model(model)
+                .os(os)
+                .ram(ram)
+                .internalMemory(Attributes.InternalMemoryEnum.GB_256)
+                .itemSalesInformation(ItemSalesInformationEntity.builder()
+                                              .id(id)
+                                              .price(50_000.0)
+                                              .currency(CurrencyEnum.₽)
+                                              .build())
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package index;
+
+import dto.CacheRegionStatisticDto;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import entity.enums.Attributes;
+import entity.enums.CurrencyEnum;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "ItemsInfoCache")
+public class ItemsInfoCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, ItemsEntity> loader = id -> {
+        loads.incrementAndGet();
+        return item(id, 1L);
+    };
+
+    @Tag("Unit")
+    @Test
+    void get_repeatedReads_loadedOnceAndCounted() {
+        ItemsInfoCache cache = new ItemsInfoCache(100, Duration.ofMinutes(1), Runnable::run);
+
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+
+        CacheRegionStatisticDto statistics = cache.statistics();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(statistics.getHitCount()).isEqualTo(2);
+        assertThat(statistics.getMissCount()).isEqualTo(1);
+    }
+
+    @Tag("Unit")
+    @Test
+    void get_afterItemOrPriceUpdate_reloaded() {
+        ItemsInfoCache cache = new ItemsInfoCache(100, Duration.ofMinutes(1), Runnable::run);
+        cache.get(1L, loader);
+
+        cache.index(item(1L, 2L));
+        cache.get(1L, loader);
+        cache.updateSalesInformation(item(1L, 2L).getItemSalesInformation());
+        cache.get(1L, loader);
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Tag("Unit")
+    @Test
+    void get_oneOffScan_popularItemsSurvive() {
+        ItemsInfoCache cache = new ItemsInfoCache(50, Duration.ofMinutes(1), Runnable::run);
+        LongStream.rangeClosed(100, 140).forEach(id -> cache.get(id, loader));
+        for (int i = 0; i < 20; i++) {
+            LongStream.rangeClosed(1, 10).forEach(id -> cache.get(id, loader));
+        }
+        LongStream.rangeClosed(1_000, 3_000).forEach(id -> cache.get(id, loader));
+        cache.cleanUp();
+        int loadsAfterScan = loads.get();
+
+        LongStream.rangeClosed(1, 10).forEach(id -> cache.get(id, loader));
+
+        // the sketch is approximate, so allow a single unlucky popular item
+        assertThat(loads.get() - loadsAfterScan).isLessThanOrEqualTo(1);
+        assertThat(cache.statistics().getEvictionCount()).isPositive();
+    }
+
+    private static ItemsEntity item(Long id, Long version) {
+        return ItemsEntity.builder()
+                .id(id)
+                .version(version)
+                .brand(Attributes.BrandEnum.GOOGLE)
+                .model("Pixel " + id)
+                .os(Attributes.OperatingSystemEnum.ANDROID)
+                .internalMemory(Attributes.InternalMemoryEnum.GB_128)
+                .ram(Attributes.RamEnum.GB_8)
+                .itemSalesInformation(ItemSalesInformationEntity.builder()
+                                              .id(id)
+                                              .price(40_000.0)
+                                              .currency(CurrencyEnum.₽)
+                                              .build())
+                .build();
+    }
+}
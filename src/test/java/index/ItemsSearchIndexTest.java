@@ -0,0 +1,99 @@
+package index;
+
+import dto.ItemsPageDto;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import entity.enums.Attributes;
+import entity.enums.CurrencyEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+
+import static entity.enums.Attributes.BrandEnum.APPLE;
+import static entity.enums.Attributes.BrandEnum.SAMSUNG;
+import static entity.enums.Attributes.InternalMemoryEnum.GB_128;
+import static entity.enums.Attributes.InternalMemoryEnum.GB_256;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "ItemsSearchIndex")
+public class ItemsSearchIndexTest {
+
+    private final ItemsSearchIndex index = new ItemsSearchIndex();
+
+    @BeforeEach
+    void fillIndex() {
+        index.rebuild(List.of(item(1L, SAMSUNG, "Galaxy S23", GB_256, "black"),
+                              item(2L, SAMSUNG, "Galaxy S23", GB_128, "black"),
+                              item(3L, SAMSUNG, "Galaxy A54", GB_256, "white"),
+                              item(4L, APPLE, "iPhone 14", GB_256, "black")));
+    }
+
+    @Tag("Unit")
+    @Test
+    void tokenize_mixedInput_lowercaseTermsWithoutUnits() {
+        assertThat(ItemsSearchIndex.tokenize("Galaxy 256GB, Black")).containsExactly("galaxy", "256", "black");
+    }
+
+    @Tag("Unit")
+    @Test
+    void search_allTokensRequired_onlyFullMatches() {
+        ItemsPageDto page = index.search("galaxy 256 black", 1, 10);
+
+        assertThat(page.getTotalCount()).isEqualTo(1L);
+        assertThat(page.getItems()).extracting("model", "internalMemory")
+                .containsExactly(tuple("Galaxy S23", "256"));
+    }
+
+    @Tag("Unit")
+    @Test
+    void search_prefixAndTypo_matched() {
+        assertThat(index.search("gala", 1, 10).getTotalCount()).isEqualTo(3L);
+        assertThat(index.search("galxay", 1, 10).getTotalCount()).isEqualTo(3L);
+        assertThat(index.search("iphnoe", 1, 10).getItems()).extracting("model")
+                .containsExactly("iPhone 14");
+    }
+
+    @Tag("Unit")
+    @Test
+    void search_exactModelTerm_rankedAbovePrefix() {
+        index.index(item(5L, APPLE, "iPhone 14 Pro", GB_256, "s23 case"));
+
+        ItemsPageDto page = index.search("s23", 1, 10);
+
+        assertThat(page.getItems()).extracting("model")
+                .containsExactly("Galaxy S23", "Galaxy S23", "iPhone 14 Pro");
+    }
+
+    @Tag("Unit")
+    @Test
+    void index_updatedItem_oldTermsForgotten() {
+        index.index(item(4L, APPLE, "iPhone 15", GB_256, "black"));
+
+        assertThat(index.search("iphone 14", 1, 10).getTotalCount()).isZero();
+        assertThat(index.search("iphone 15", 1, 10).getTotalCount()).isEqualTo(1L);
+    }
+
+    private static ItemsEntity item(Long id, Attributes.BrandEnum brand, String model,
+                                    Attributes.InternalMemoryEnum internalMemory, String color) {
+        return ItemsEntity.builder()
+                .id(id)
+                .brand(brand)
+                .model(model)
+                .color(color)
+                .internalMemory(internalMemory)
+                .ram(Attributes.RamEnum.GB_8)
+                .os(brand == APPLE ? Attributes.OperatingSystemEnum.IOS : Attributes.OperatingSystemEnum.ANDROID)
+                .itemSalesInformation(ItemSalesInformationEntity.builder()
+                                              .id(id)
+                                              .price(50_000.0)
+                                              .currency(CurrencyEnum.₽)
+                                              .build())
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package index;
+
+import entity.ItemsEntity;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "ModelSuggestIndex")
+public class ModelSuggestIndexTest {
+
+    @Tag("Unit")
+    @Test
+    void complete_prefix_heaviestModelsFirst() {
+        ModelTrie trie = ModelTrie.build(Map.of("Galaxy S23", 40L, "Galaxy A54", 90L, "Galaxy Z Flip5", 5L,
+                                                "iPhone 14", 200L));
+
+        assertThat(trie.complete("gal", 2)).containsExactly("Galaxy A54", "Galaxy S23");
+        assertThat(trie.complete("Galaxy S", 10)).containsExactly("Galaxy S23");
+        assertThat(trie.complete("", 1)).containsExactly("iPhone 14");
+        assertThat(trie.complete("pixel", 10)).isEmpty();
+    }
+
+    @Tag("Unit")
+    @Test
+    void suggest_variantsOfOneModel_salesAddedUp() {
+        ModelSuggestIndex index = new ModelSuggestIndex();
+        index.recordSale(1L, 10);
+        index.recordSale(2L, 15);
+        index.recordSale(3L, 20);
+
+        index.rebuild(List.of(item(1L, "Galaxy S23"), item(2L, "Galaxy S23"), item(3L, "Galaxy A54")));
+
+        assertThat(index.suggest("galaxy", 5)).containsExactly("Galaxy S23", "Galaxy A54");
+    }
+
+    @Tag("Unit")
+    @Test
+    void suggest_newSales_trieSwappedInBackground() throws InterruptedException {
+        ModelSuggestIndex index = new ModelSuggestIndex();
+        index.rebuild(List.of(item(1L, "Galaxy S23"), item(2L, "Galaxy A54")));
+
+        index.recordSale(2L, 3);
+        index.index(item(3L, "Galaxy Note"));
+
+        List<String> expected = List.of("Galaxy A54", "Galaxy Note", "Galaxy S23");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!index.suggest("galaxy", 5).equals(expected) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertThat(index.suggest("galaxy", 5)).isEqualTo(expected);
+    }
+
+    private static ItemsEntity item(Long id, String model) {
+        return ItemsEntity.builder()
+                .id(id)
+                .model(model)
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+package index;
+
+import dao.PriceHistoryDao.PriceRevision;
+import dto.PricePointDto;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "PriceSeriesCache")
+public class PriceSeriesCacheTest {
+
+    private final List<PriceRevision> audit = new ArrayList<>();
+    private final List<Long> requestedAfter = new ArrayList<>();
+    private final LongFunction<List<PriceRevision>> revisionsAfter = after -> {
+        requestedAfter.add(after);
+        return audit.stream().filter(revision -> revision.revision() > after).toList();
+    };
+
+    @Tag("Unit")
+    @Test
+    void get_unchangedRow_loadsRevisionsOnce() {
+        PriceSeriesCache cache = new PriceSeriesCache(100, Duration.ZERO, Duration.ofMinutes(1));
+        audit.add(new PriceRevision(1, 1_000, 500.0));
+        audit.add(new PriceRevision(2, 2_000, 450.0));
+
+        cache.get(7L, revisionsAfter);
+        PriceSeriesCache.Series series = cache.get(7L, revisionsAfter);
+
+        assertThat(series.size()).isEqualTo(2);
+        assertThat(requestedAfter).containsExactly(0L);
+    }
+
+    @Tag("Unit")
+    @Test
+    void remove_phone_dropsItsSeries() {
+        PriceSeriesCache cache = new PriceSeriesCache(100, Duration.ZERO, Duration.ofMinutes(1));
+        cache.rebuild(List.of(ItemsEntity.builder()
+                                      .id(3L)
+                                      .itemSalesInformation(ItemSalesInformationEntity.builder().id(7L).build())
+                                      .build()));
+        audit.add(new PriceRevision(1, 1_000, 500.0));
+        cache.get(7L, revisionsAfter);
+
+        cache.remove(3L);
+        cache.get(7L, revisionsAfter);
+
+        assertThat(requestedAfter).containsExactly(0L, 0L);
+    }
+
+    @Tag("Unit")
+    @Test
+    void get_afterPriceChange_loadsOnlyNewRevisions() throws InterruptedException {
+        PriceSeriesCache cache = new PriceSeriesCache(100, Duration.ZERO, Duration.ofMinutes(1));
+        audit.add(new PriceRevision(1, 1_000, 500.0));
+        cache.get(7L, revisionsAfter);
+
+        Thread.sleep(5);
+        cache.updateSalesInformation(ItemSalesInformationEntity.builder().id(7L).price(400.0).build());
+        audit.add(new PriceRevision(3, 3_000, 400.0));
+        PriceSeriesCache.Series series = cache.get(7L, revisionsAfter);
+
+        assertThat(series.size()).isEqualTo(2);
+        assertThat(requestedAfter).containsExactly(0L, 1L);
+    }
+
+    @Tag("Unit")
+    @Test
+    void get_revisionWithSamePrice_addsNoPoint() {
+        PriceSeriesCache cache = new PriceSeriesCache(100, Duration.ZERO, Duration.ofMinutes(1));
+        audit.add(new PriceRevision(1, 1_000, 500.0));
+        audit.add(new PriceRevision(2, 2_000, 500.0));
+        audit.add(new PriceRevision(3, 3_000, 450.0));
+
+        assertThat(cache.get(7L, revisionsAfter).size()).isEqualTo(2);
+    }
+
+    @Tag("Unit")
+    @Test
+    void points_rangeBetweenChanges_openedAndClosedByPriceInEffect() {
+        PriceSeriesCache cache = new PriceSeriesCache(100, Duration.ZERO, Duration.ofMinutes(1));
+        audit.add(new PriceRevision(1, 1_000, 500.0));
+        audit.add(new PriceRevision(2, 5_000, 450.0));
+        audit.add(new PriceRevision(3, 9_000, 400.0));
+
+        List<PricePointDto> points = cache.get(7L, revisionsAfter)
+                .points(Instant.ofEpochMilli(3_000), Instant.ofEpochMilli(7_000), 100);
+
+        assertThat(points).containsExactly(PricePointDto.of(Instant.ofEpochMilli(3_000), 500.0),
+                                           PricePointDto.of(Instant.ofEpochMilli(5_000), 450.0),
+                                           PricePointDto.of(Instant.ofEpochMilli(7_000), 450.0));
+    }
+
+    @Tag("Unit")
+    @Test
+    void points_longSeries_downsampledKeepingSpike() {
+        PriceSeriesCache cache = new PriceSeriesCache(100, Duration.ZERO, Duration.ofMinutes(1));
+        for (int i = 1; i <= 1_000; i++) {
+            audit.add(new PriceRevision(i, i * 1_000L, i == 500 ? 900.0 : 100.0 + i % 2));
+        }
+
+        List<PricePointDto> points = cache.get(7L, revisionsAfter)
+                .points(Instant.ofEpochMilli(1_000), Instant.ofEpochMilli(1_000_000), 50);
+
+        assertThat(points).hasSize(50);
+        assertThat(points.get(0).getAt()).isEqualTo(Instant.ofEpochMilli(1_000));
+        assertThat(points.get(49).getAt()).isEqualTo(Instant.ofEpochMilli(1_000_000));
+        assertThat(points).extracting(PricePointDto::getPrice).contains(900.0);
+    }
+}
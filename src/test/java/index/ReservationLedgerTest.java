@@ -0,0 +1,65 @@
+package index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import utlis.TimerWheel;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "ReservationLedger")
+public class ReservationLedgerTest {
+
+    private final List<Long> expired = new CopyOnWriteArrayList<>();
+    private final ReservationLedger ledger = new ReservationLedger(new TimerWheel("test-reservations", 10, 16),
+                                                                  expired::add);
+
+    @AfterEach
+    void closeLedger() {
+        ledger.close();
+    }
+
+    @Tag("Unit")
+    @Test
+    void held_onlyTrackedHoldsOfTheItem() {
+        ledger.track(10L, 1L, 3, 60_000);
+        ledger.track(11L, 1L, 2, 60_000);
+        ledger.track(12L, 2L, 4, 60_000);
+
+        assertThat(ledger.held(1L)).isEqualTo(5);
+        assertThat(ledger.held(3L)).isZero();
+    }
+
+    @Tag("Unit")
+    @Test
+    void release_confirmedOrCancelled_onlyOnce() {
+        ledger.track(10L, 1L, 2, 60_000);
+
+        assertThat(ledger.release(10L)).isTrue();
+        assertThat(ledger.release(10L)).isFalse();
+        assertThat(ledger.held(1L)).isZero();
+        assertThat(ledger.activeCount()).isZero();
+    }
+
+    @Tag("Unit")
+    @Test
+    void track_holdRunsOut_releasedAndReported() throws InterruptedException {
+        ledger.track(10L, 1L, 4, 50);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (expired.isEmpty() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        assertThat(expired).containsExactly(10L);
+        assertThat(ledger.held(1L)).isZero();
+        assertThat(ledger.release(10L)).isFalse();
+    }
+}
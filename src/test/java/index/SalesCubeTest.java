@@ -0,0 +1,83 @@
+package index;
+
+import dto.CubeCellDto;
+import dto.CubeQueryDto;
+import dto.filter.CubeDimension;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "SalesCube")
+public class SalesCubeTest {
+
+    private final SalesCube cube = new SalesCube(ForkJoinPool.commonPool());
+
+    @Tag("Unit")
+    @Test
+    void query_groupByBrandFilteredByCountry_sumsMatchingSales() {
+        cube.replaceAll(List.of(cube.newSegment()
+                                        .add(sale("APPLE", "RUSSIA", "2024-01"), 2, 2000)
+                                        .add(sale("SAMSUNG", "RUSSIA", "2024-01"), 1, 700)
+                                        .add(sale("APPLE", "BELARUS", "2024-02"), 5, 5000)
+                                        .build(),
+                                cube.newSegment()
+                                        .add(sale("APPLE", "RUSSIA", "2024-02"), 1, 1100)
+                                        .build()));
+
+        List<CubeCellDto> cells = cube.query(CubeQueryDto.builder()
+                                                     .filter(CubeDimension.COUNTRY, Set.of("RUSSIA"))
+                                                     .groupBy(CubeDimension.BRAND)
+                                                     .build());
+
+        assertThat(cells).containsExactly(CubeCellDto.of(Map.of(CubeDimension.BRAND, "APPLE"), 3, 3100, 2),
+                                          CubeCellDto.of(Map.of(CubeDimension.BRAND, "SAMSUNG"), 1, 700, 1));
+    }
+
+    @Tag("Unit")
+    @Test
+    void query_twoDimensionsAfterAppend_includesNewSales() {
+        cube.replaceAll(List.of(cube.newSegment().add(sale("APPLE", "RUSSIA", "2024-01"), 1, 1000).build()));
+        cube.append(cube.newSegment().add(sale("APPLE", "RUSSIA", "2024-02"), 2, 2000).build());
+
+        List<CubeCellDto> cells = cube.query(CubeQueryDto.builder()
+                                                     .groupBy(CubeDimension.BRAND)
+                                                     .groupBy(CubeDimension.MONTH)
+                                                     .build());
+
+        assertThat(cube.rowCount()).isEqualTo(2);
+        assertThat(cells).extracting(CubeCellDto::getKey)
+                .containsExactly(Map.of(CubeDimension.BRAND, "APPLE", CubeDimension.MONTH, "2024-02"),
+                                 Map.of(CubeDimension.BRAND, "APPLE", CubeDimension.MONTH, "2024-01"));
+    }
+
+    @Tag("Unit")
+    @Test
+    void query_unknownFilterValue_noCells() {
+        cube.replaceAll(List.of(cube.newSegment().add(sale("APPLE", null, "2024-01"), 1, 1000).build()));
+
+        assertThat(cube.query(CubeQueryDto.builder().filter(CubeDimension.BRAND, Set.of("NOKIA")).build())).isEmpty();
+        assertThat(cube.query(CubeQueryDto.builder().groupBy(CubeDimension.COUNTRY).build()))
+                .extracting(CubeCellDto::getKey)
+                .containsExactly(Map.of(CubeDimension.COUNTRY, SalesCube.UNKNOWN));
+    }
+
+    private static String[] sale(String brand, String country, String month) {
+        String[] values = new String[CubeDimension.values().length];
+        values[CubeDimension.BRAND.ordinal()] = brand;
+        values[CubeDimension.OS.ordinal()] = "IOS";
+        values[CubeDimension.MEMORY.ordinal()] = "GB_128";
+        values[CubeDimension.COUNTRY.ordinal()] = country;
+        values[CubeDimension.CURRENCY.ordinal()] = "₽";
+        values[CubeDimension.MONTH.ordinal()] = month;
+        return values;
+    }
+}
@@ -0,0 +1,54 @@
+package index;
+
+import dto.SpenderDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "SpendersLeaderboard")
+public class SpendersLeaderboardTest {
+
+    private final SpendersLeaderboard leaderboard = new SpendersLeaderboard(2);
+
+    @Tag("Unit")
+    @Test
+    void record_buyerOvertakesTop_replacesSmallest() {
+        leaderboard.record(1L, 100);
+        leaderboard.record(2L, 300);
+        leaderboard.record(3L, 150);
+        leaderboard.record(1L, 250);
+
+        assertThat(leaderboard.top()).containsExactly(SpenderDto.of(1L, 350), SpenderDto.of(2L, 300));
+    }
+
+    @Tag("Unit")
+    @Test
+    void remove_topBuyer_nextBuyerMovesUp() {
+        leaderboard.record(1L, 100);
+        leaderboard.record(2L, 300);
+        leaderboard.record(3L, 200);
+
+        leaderboard.remove(2L);
+
+        assertThat(leaderboard.top()).containsExactly(SpenderDto.of(3L, 200), SpenderDto.of(1L, 100));
+    }
+
+    @Tag("Unit")
+    @Test
+    void reconcile_saleDuringLoad_keptOnTopOfLoadedTotals() {
+        leaderboard.record(1L, 999);
+
+        leaderboard.reconcile(() -> {
+            leaderboard.record(2L, 50);
+            return Map.of(2L, 100.0, 3L, 120.0);
+        });
+
+        assertThat(leaderboard.top()).containsExactly(SpenderDto.of(2L, 150), SpenderDto.of(3L, 120));
+    }
+}
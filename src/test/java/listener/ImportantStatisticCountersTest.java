@@ -0,0 +1,53 @@
+package listener;
+
+import entity.ImportantStatisticEntity;
+import listener.ImportantStatisticCounters.Counter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "ImportantStatisticCounters")
+public class ImportantStatisticCountersTest {
+
+    @Tag("Unit")
+    @Test
+    void merge_pendingDeltas_addedToStoredRow() {
+        var counters = new ImportantStatisticCounters(null);
+        counters.increment(Counter.ALL_USERS);
+        counters.increment(Counter.PREMIUM_USERS);
+        counters.increment(Counter.SALES);
+        counters.increment(Counter.SALES);
+
+        var merged = counters.merge(ImportantStatisticEntity.builder()
+                                            .allUsersCounter(10L)
+                                            .salesCounter(5L)
+                                            .itemsCounter(3L)
+                                            .build());
+
+        assertThat(merged.getAllUsersCounter()).isEqualTo(11L);
+        assertThat(merged.getPremiumUsersCounter()).isEqualTo(1L);
+        assertThat(merged.getSalesCounter()).isEqualTo(7L);
+        assertThat(merged.getItemsCounter()).isEqualTo(3L);
+    }
+
+    @Tag("Unit")
+    @Test
+    void increment_concurrentWriters_noDeltaLost() throws InterruptedException {
+        var counters = new ImportantStatisticCounters(null);
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        IntStream.range(0, 10_000).forEach(i -> writers.execute(() -> counters.increment(Counter.SALES)));
+        writers.shutdown();
+        assertThat(writers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(counters.merge(null).getSalesCounter()).isEqualTo(10_000L);
+    }
+}
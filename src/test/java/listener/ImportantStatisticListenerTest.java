@@ -1,7 +1,6 @@
 package listener;
 
 import dao.PersonalAccountDao;
-import entity.ImportantStatisticEntity;
 import entity.ItemsEntity;
 import entity.PersonalAccountEntity;
 import entity.SellHistoryEntity;
@@ -57,7 +56,7 @@ public class ImportantStatisticListenerTest {
     void checkStatistic_addEntities_StatisticCreated() {
         @Cleanup var session = entityManager.openSession();
         session.beginTransaction();
-        var importantStatisticEntity = session.get(ImportantStatisticEntity.class, 1L);
+        var importantStatisticEntity = ImportantStatisticCounters.of(entityManager).read(session);
         assertThat(importantStatisticEntity.getItemsCounter()).isEqualTo(itemsEntities.size());
         assertThat(importantStatisticEntity.getSalesCounter()).isEqualTo(sellHistoryEntities.size());
         assertThat(importantStatisticEntity.getAllUsersCounter()).isEqualTo(personalAccountEntities.size());
@@ -75,7 +74,7 @@ public class ImportantStatisticListenerTest {
             session.getTransaction().commit();
         }
         session.beginTransaction();
-        var importantStatisticEntity = session.get(ImportantStatisticEntity.class, 1L);
+        var importantStatisticEntity = ImportantStatisticCounters.of(entityManager).read(session);
         assertThat(importantStatisticEntity.getPremiumUsersCounter()).isEqualTo(personalAccountEntities.size());
         session.getTransaction().commit();
 
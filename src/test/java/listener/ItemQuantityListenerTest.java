@@ -1,5 +1,6 @@
 package listener;
 
+import dao.StockMovementDao;
 import entity.ItemsEntity;
 import entity.PersonalAccountEntity;
 import entity.SellHistoryEntity;
@@ -42,9 +43,7 @@ public class ItemQuantityListenerTest {
         persistEntitiesList(sellHistories, session);
         System.out.println();
         session.beginTransaction();
-        Integer quantityItem = session.get(ItemsEntity.class, 1l)
-                .getItemSalesInformation()
-                .getQuantity();
+        long quantityItem = new StockMovementDao(session).balance(1L);
         Integer quantitySellHistory = session.get(SellHistoryEntity.class, 1l)
                 .getQuantity();
         session.getTransaction()
@@ -2,9 +2,16 @@ package service;
 
 import dao.ItemsDao;
 import dto.AddItemDto;
+import dto.CatalogChangeDto;
+import dto.CatalogChangesDto;
 import dto.ItemsInfoDto;
+import dto.MultiGetResultDto;
+import dto.QueryCacheStatisticDto;
 import dto.UpdateItemDto;
 import dto.filter.AttributesFilter;
+import dto.filter.CatalogSyncToken;
+import dto.filter.ItemsCursor;
+import dto.filter.ItemsSort;
 import entity.ItemsEntity;
 import io.vavr.control.Either;
 import jakarta.validation.ConstraintViolation;
@@ -14,6 +21,8 @@ import mapper.ItemsInfoMapper;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -31,8 +40,13 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import static entity.enums.Attributes.BrandEnum.GOOGLE;
+import static entity.enums.Attributes.OperatingSystemEnum.ANDROID;
+import static entity.enums.Attributes.RamEnum.GB_4;
 import static java.util.Collections.emptySet;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -117,6 +131,122 @@ public class ItemsServiceTest {
         List<ItemsInfoDto> itemsWithParameters = itemsService.findItemsWithParameters(filterMock, 1, 3);
     }
 
+    @Tag("Unit")
+    @Test
+    void queryCacheStatistics_cachedAndUncachedQueries_onlyCachedWithHitRatio() {
+        mockitoClosable = MockitoAnnotations.openMocks(this);
+        Statistics statistics = mock(Statistics.class);
+        QueryStatistics cached = mock(QueryStatistics.class);
+        QueryStatistics uncached = mock(QueryStatistics.class);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(statistics.getQueries()).thenReturn(new String[]{"select count(items)", "select items"});
+        when(statistics.getQueryStatistics("select count(items)")).thenReturn(cached);
+        when(statistics.getQueryStatistics("select items")).thenReturn(uncached);
+        when(cached.getCacheHitCount()).thenReturn(3L);
+        when(cached.getCacheMissCount()).thenReturn(1L);
+        when(cached.getCachePutCount()).thenReturn(1L);
+
+        List<QueryCacheStatisticDto> queryCacheStatistics = itemsService.queryCacheStatistics();
+
+        assertThat(queryCacheStatistics).containsExactly(QueryCacheStatisticDto.of("select count(items)", 3, 1, 1));
+        assertThat(queryCacheStatistics.get(0).getHitRatio()).isEqualTo(0.75);
+    }
+
+    @Tag("Unit")
+    @Test
+    void findItemsAfter_laterPage_notCounted() {
+        mockitoClosable = MockitoAnnotations.openMocks(this);
+        when(session.getTransaction())
+                .thenReturn(transaction);
+        when(sessionFactory.getCurrentSession())
+                .thenReturn(session);
+        doReturn(List.of()).when(itemsDao).findItemsAfter(any(), eq(ItemsSort.NEWEST), any(), eq(6L));
+        String cursor = ItemsCursor.of(ItemsSort.NEWEST, 40L, null).encode();
+
+        var page = itemsService.findItemsAfter(AttributesFilter.builder().build(), ItemsSort.NEWEST, cursor, 5);
+
+        assertThat(page.getTotalCount()).isNull();
+        verify(itemsDao, never()).estimateItemsWithParameters(any(), anyBoolean());
+        verify(itemsDao, never()).countItemsWithParameters(any(), anyBoolean());
+    }
+
+    @Tag("Unit")
+    @Test
+    void findItemsAfter_firstModelPage_countedWithoutSalesInformationJoin() {
+        mockitoClosable = MockitoAnnotations.openMocks(this);
+        when(session.getTransaction())
+                .thenReturn(transaction);
+        when(sessionFactory.getCurrentSession())
+                .thenReturn(session);
+        AttributesFilter filter = AttributesFilter.builder()
+                .brand(GOOGLE)
+                .os(ANDROID)
+                .ram(GB_4)
+                .build();
+        doReturn(List.of()).when(itemsDao).findItemsAfter(eq(filter), eq(ItemsSort.MODEL), isNull(), eq(6L));
+        doReturn(7L).when(itemsDao).estimateItemsWithParameters(filter, false);
+        doReturn(7L).when(itemsDao).countItemsWithParameters(filter, false);
+
+        var page = itemsService.findItemsAfter(filter, ItemsSort.MODEL, null, 5);
+
+        assertThat(page.getTotalCount()).isEqualTo(7L);
+        assertThat(page.getPageCount()).isEqualTo(2L);
+        verify(itemsDao, never()).countItemsWithParameters(any(), eq(true));
+    }
+
+    @Tag("Unit")
+    @Test
+    void findItemsAfter_limitZero_rejected() {
+        mockitoClosable = MockitoAnnotations.openMocks(this);
+
+        assertThatThrownBy(() -> itemsService.findItemsAfter(AttributesFilter.builder().build(), ItemsSort.MODEL,
+                                                             null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(itemsDao);
+    }
+
+    @Tag("Unit")
+    @Test
+    void findItemsAfter_cursorOfAnotherSort_rejected() {
+        mockitoClosable = MockitoAnnotations.openMocks(this);
+        String modelCursor = ItemsCursor.of(ItemsSort.MODEL, 7L, "Galaxy").encode();
+
+        assertThatThrownBy(() -> itemsService.findItemsAfter(AttributesFilter.builder().build(), ItemsSort.PRICE,
+                                                             modelCursor, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(itemsDao);
+    }
+
+    @Tag("Unit")
+    @Test
+    void findChangesSince_itemDeletedAfterItsChangeWasRead_reportedDeleted() {
+        mockitoClosable = MockitoAnnotations.openMocks(this);
+        when(session.getTransaction())
+                .thenReturn(transaction);
+        when(sessionFactory.getCurrentSession())
+                .thenReturn(session);
+        CatalogSyncToken since = CatalogSyncToken.of(100L, 5L);
+        CatalogSyncToken last = CatalogSyncToken.of(102L, 9L);
+        when(itemsDao.findChangesAfter(since, 3)).thenReturn(List.of(
+                new ItemsDao.CatalogChange(1L, CatalogSyncToken.of(101L, 7L), false),
+                new ItemsDao.CatalogChange(2L, CatalogSyncToken.of(101L, 8L), false),
+                new ItemsDao.CatalogChange(3L, last, true)));
+        ItemsInfoDto keptDto = (ItemsInfoDto) argumentsOnItemsInfoDto().findFirst().get().get()[0];
+        ItemsEntity kept = ItemsInfoMapper.INSTANCE.toEntity(keptDto);
+        kept.setId(1L);
+        kept.setVersion(4L);
+        when(itemsDao.getAllByIds(List.of(1L, 2L))).thenReturn(MultiGetResultDto.of(List.of(kept), List.of(2L)));
+
+        CatalogChangesDto changes = itemsService.findChangesSince(since.encode(), 3);
+
+        assertThat(changes.getChanges()).extracting(CatalogChangeDto::getItemId, CatalogChangeDto::isDeleted)
+                .containsExactly(tuple(1L, false), tuple(2L, true), tuple(3L, true));
+        assertThat(changes.getChanges().get(0).getVersion()).isEqualTo(4L);
+        assertThat(changes.getChanges().get(0).getItem()).isEqualTo(keptDto);
+        assertThat(changes.getToken()).isEqualTo(last.encode());
+        assertThat(changes.isHasMore()).isTrue();
+    }
+
     public static Stream<Arguments> argumentsOneAddItemsDto() {
         return Stream.of(Arguments.of(AddItemDto.builder()
                 .brand("Google")
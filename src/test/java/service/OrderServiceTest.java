@@ -0,0 +1,110 @@
+package service;
+
+import dao.SellHistoryDao;
+import dao.StockMovementDao;
+import dto.OrderLineDto;
+import dto.OrderLineResultDto;
+import dto.OrderLineResultDto.Status;
+import dto.OrderResultDto;
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import entity.SellHistoryEntity;
+import org.hibernate.MultiIdentifierLoadAccess;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "OrderServiceTest")
+public class OrderServiceTest {
+
+    @Mock
+    SessionFactory sessionFactory;
+    @Mock
+    Session session;
+    @Mock
+    Transaction transaction;
+    @Mock
+    MultiIdentifierLoadAccess<ItemsEntity> multiLoadAccess;
+    @Mock
+    StockMovementDao stockMovementDao;
+    @Mock
+    SellHistoryDao sellHistoryDao;
+    @InjectMocks
+    OrderService orderService;
+    private AutoCloseable mockitoClosable;
+
+    @AfterEach
+    void closeMocks() throws Exception {
+        if (mockitoClosable != null) {
+            mockitoClosable.close();
+        }
+    }
+
+    @Tag("Unit")
+    @Test
+    void placeOrder_multiLineCart_locksInItemOrderAndWritesPlacedLines() {
+        mockitoClosable = MockitoAnnotations.openMocks(this);
+        when(sessionFactory.getCurrentSession()).thenReturn(session);
+        when(session.getTransaction()).thenReturn(transaction);
+        when(session.byMultipleIds(ItemsEntity.class)).thenReturn(multiLoadAccess);
+        when(multiLoadAccess.multiLoad(List.of(1L, 2L, 3L))).thenReturn(List.of(item(1L), item(2L), item(3L)));
+        when(stockMovementDao.balances(List.of(1L, 2L, 3L))).thenReturn(Map.of(1L, 5L, 2L, 1L, 3L, 4L));
+        List<OrderLineDto> lines = List.of(OrderLineDto.of(3L, 2),
+                                           OrderLineDto.of(1L, 4),
+                                           OrderLineDto.of(2L, 2),
+                                           OrderLineDto.of(1L, 1));
+
+        OrderResultDto result = orderService.placeOrder(1L, lines);
+
+        assertThat(result.getLines())
+                .extracting(OrderLineResultDto::getItemId, OrderLineResultDto::getStatus)
+                .containsExactly(tuple(3L, Status.PLACED), tuple(1L, Status.PLACED),
+                                 tuple(2L, Status.INSUFFICIENT_STOCK), tuple(1L, Status.PLACED));
+        var inOrder = inOrder(stockMovementDao, sellHistoryDao, transaction);
+        inOrder.verify(stockMovementDao).lockItems(List.of(1L, 2L, 3L));
+        inOrder.verify(stockMovementDao).balances(List.of(1L, 2L, 3L));
+        inOrder.verify(stockMovementDao).appendSales(List.of(Map.entry(3L, 2), Map.entry(1L, 4), Map.entry(1L, 1)));
+        inOrder.verify(sellHistoryDao, times(3)).insert(any(SellHistoryEntity.class));
+        inOrder.verify(transaction).commit();
+    }
+
+    @Tag("Unit")
+    @Test
+    void allocate_mixedCart_outcomePerLine() {
+        List<OrderLineDto> lines = List.of(OrderLineDto.of(1L, 60),
+                                           OrderLineDto.of(2L, 10),
+                                           OrderLineDto.of(1L, 50),
+                                           OrderLineDto.of(3L, 1),
+                                           OrderLineDto.of(2L, 0),
+                                           OrderLineDto.of(1L, 40));
+
+        List<Status> statuses = OrderService.allocate(lines, Map.of(1L, 100L, 2L, 10L));
+
+        assertThat(statuses).containsExactly(Status.PLACED, Status.PLACED, Status.INSUFFICIENT_STOCK,
+                                             Status.UNKNOWN_ITEM, Status.INVALID_QUANTITY, Status.PLACED);
+    }
+
+    private static ItemsEntity item(Long id) {
+        return ItemsEntity.builder()
+                .id(id)
+                .itemSalesInformation(ItemSalesInformationEntity.builder().price(100.0).build())
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package util;
+
+import entity.ItemSalesInformationEntity;
+import entity.ItemsEntity;
+import entity.enums.CurrencyEnum;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.envers.AuditReaderFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import utlis.HibernateTestUtil;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static entity.enums.Attributes.BrandEnum.GOOGLE;
+import static entity.enums.Attributes.InternalMemoryEnum.GB_128;
+import static entity.enums.Attributes.OperatingSystemEnum.ANDROID;
+import static entity.enums.Attributes.RamEnum.GB_4;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "AsyncAuditWriter")
+public class AsyncAuditWriterIntegrationTest {
+
+    @Tag("Integration")
+    @Test
+    void commit_auditedEntity_revisionReadableThroughAuditReader() throws InterruptedException {
+        try (SessionFactory sessionFactory = HibernateTestUtil.getSessionFactory(true)) {
+            ItemsEntity item = item("pixel 8");
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                session.persist(item);
+                session.getTransaction().commit();
+            }
+
+            List<Number> revisions = awaitRevisions(sessionFactory, item.getId());
+
+            assertThat(revisions).hasSize(1);
+            try (Session session = sessionFactory.openSession()) {
+                ItemsEntity audited = AuditReaderFactory.get(session)
+                        .find(ItemsEntity.class, item.getId(), revisions.get(0));
+                assertThat(audited.getModel()).isEqualTo("pixel 8");
+                assertThat(audited.getItemSalesInformation().getPrice()).isEqualTo(499.0);
+            }
+        }
+    }
+
+    @Tag("Integration")
+    @Test
+    void rollback_auditedEntity_noRevision() throws InterruptedException {
+        try (SessionFactory sessionFactory = HibernateTestUtil.getSessionFactory(true)) {
+            ItemsEntity committed = item("pixel 8 pro");
+            ItemsEntity rolledBack = item("pixel 8a");
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                session.persist(rolledBack);
+                session.flush();
+                session.getTransaction().rollback();
+            }
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                session.persist(committed);
+                session.getTransaction().commit();
+            }
+
+            // the journal is written in order, so once the later commit is audited the rollback would have been
+            awaitRevisions(sessionFactory, committed.getId());
+
+            try (Session session = sessionFactory.openSession()) {
+                assertThat(AuditReaderFactory.get(session).getRevisions(ItemsEntity.class, rolledBack.getId()))
+                        .isEmpty();
+            }
+        }
+    }
+
+    private static List<Number> awaitRevisions(SessionFactory sessionFactory, Long itemId)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try (Session session = sessionFactory.openSession()) {
+                List<Number> revisions = AuditReaderFactory.get(session).getRevisions(ItemsEntity.class, itemId);
+                if (!revisions.isEmpty() || System.nanoTime() > deadline) {
+                    return revisions;
+                }
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    private static ItemsEntity item(String model) {
+        return ItemsEntity.builder()
+                .brand(GOOGLE)
+                .model(model)
+                .internalMemory(GB_128)
+                .ram(GB_4)
+                .color("obsidian")
+                .os(ANDROID)
+                .image("/pixel")
+                .itemSalesInformation(ItemSalesInformationEntity.builder()
+                                              .price(499.0)
+                                              .currency(CurrencyEnum.$)
+                                              .quantity(10)
+                                              .build())
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import utlis.AuditJournal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "AuditJournal")
+public class AuditJournalTest {
+
+    private static final long NO_COMPACTION = Long.MAX_VALUE;
+
+    @TempDir
+    Path directory;
+
+    @Tag("Unit")
+    @Test
+    void poll_moreWaitingThanBatch_returnsOldestFirst() throws InterruptedException {
+        try (AuditJournal journal = new AuditJournal(directory, 10, false, NO_COMPACTION)) {
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+            journal.append(bytes("third"));
+
+            List<AuditJournal.Entry> batch = journal.poll(2, 0, 100);
+
+            assertThat(batch).extracting(entry -> text(entry.payload())).containsExactly("first", "second");
+            journal.acknowledge(batch);
+            assertThat(journal.poll(2, 0, 100)).extracting(entry -> text(entry.payload())).containsExactly("third");
+        }
+    }
+
+    @Tag("Unit")
+    @Test
+    void open_unacknowledgedRecords_areWaitingAgain() throws InterruptedException {
+        try (AuditJournal journal = new AuditJournal(directory, 10, true, NO_COMPACTION)) {
+            journal.append(bytes("written"));
+            journal.append(bytes("lost"));
+            journal.acknowledge(journal.poll(1, 0, 100));
+        }
+        try (AuditJournal reopened = new AuditJournal(directory, 10, true, NO_COMPACTION)) {
+            assertThat(reopened.waiting()).isOne();
+            assertThat(reopened.poll(10, 0, 100)).extracting(entry -> text(entry.payload())).containsExactly("lost");
+        }
+    }
+
+    @Tag("Unit")
+    @Test
+    void open_tornLastRecord_isCutOff() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, 10, true, NO_COMPACTION)) {
+            journal.append(bytes("complete"));
+        }
+        // a crash in the middle of the next append leaves its header and part of its payload
+        Files.write(directory.resolve("audit.journal"), new byte[]{0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+        long intact = Files.size(directory.resolve("audit.journal")) - 7;
+
+        try (AuditJournal reopened = new AuditJournal(directory, 10, true, NO_COMPACTION)) {
+            assertThat(reopened.waiting()).isOne();
+            assertThat(Files.size(directory.resolve("audit.journal"))).isEqualTo(intact);
+        }
+    }
+
+    @Tag("Unit")
+    @Test
+    void append_journalFull_blocksUntilAcknowledged() throws Exception {
+        try (AuditJournal journal = new AuditJournal(directory, 2, false, NO_COMPACTION)) {
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+
+            CompletableFuture<Void> third = CompletableFuture.runAsync(() -> journal.append(bytes("third")));
+            TimeUnit.MILLISECONDS.sleep(200);
+            assertThat(third).isNotDone();
+
+            journal.acknowledge(journal.poll(1, 0, 100));
+            third.get(5, TimeUnit.SECONDS);
+            assertThat(journal.waiting()).isEqualTo(2);
+        }
+    }
+
+    @Tag("Unit")
+    @Test
+    void acknowledge_caughtUpPastMaxBytes_truncatesJournal() throws IOException, InterruptedException {
+        try (AuditJournal journal = new AuditJournal(directory, 10, false, 16)) {
+            journal.append(bytes("long enough to pass the limit"));
+            journal.acknowledge(journal.poll(10, 0, 100));
+
+            assertThat(Files.size(directory.resolve("audit.journal"))).isZero();
+            journal.append(bytes("next"));
+        }
+        try (AuditJournal reopened = new AuditJournal(directory, 10, false, 16)) {
+            assertThat(reopened.poll(10, 0, 100)).extracting(entry -> text(entry.payload())).containsExactly("next");
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
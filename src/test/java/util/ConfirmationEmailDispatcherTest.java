@@ -0,0 +1,134 @@
+package util;
+
+import dao.EmailOutboxDao;
+import dao.EmailOutboxDao.OutboxEmail;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import utlis.ConfirmationEmailDispatcher;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "ConfirmationEmailDispatcher")
+public class ConfirmationEmailDispatcherTest {
+
+    private static final long WAIT_MILLIS = 10_000L;
+
+    private final SessionFactory sessionFactory = mock(SessionFactory.class);
+    private final EmailOutboxDao outbox = mock(EmailOutboxDao.class);
+    private ConfirmationEmailDispatcher dispatcher;
+
+    @BeforeEach
+    void mockSessions() {
+        Session session = mock(Session.class);
+        doReturn(session).when(sessionFactory).openSession();
+        doReturn(mock(Transaction.class)).when(session).getTransaction();
+    }
+
+    @AfterEach
+    void stop() {
+        if (dispatcher != null) {
+            dispatcher.sessionFactoryClosing(sessionFactory);
+        }
+    }
+
+    @Tag("Unit")
+    @Test
+    void dispatchDue_serverAccepts_deliversAndMarksSent() throws IOException {
+        try (LocalSmtpServer smtp = new LocalSmtpServer(false)) {
+            claims(new OutboxEmail(1L, "buyer@example.com", "https://market/confirm?t=1", 0));
+            dispatcher = dispatcherFor(smtp.mailProperties());
+
+            dispatcher.dispatchDue();
+
+            verify(outbox, timeout(WAIT_MILLIS)).markSent(1L);
+            assertThat(smtp.messages()).singleElement().satisfies(message -> {
+                assertThat(message.recipients()).containsExactly("buyer@example.com");
+                assertThat(message.data()).contains("https://market/confirm?t=1");
+            });
+        }
+    }
+
+    @Tag("Unit")
+    @Test
+    void dispatchDue_recipientRejected_markedFailedWithoutRetry() throws IOException {
+        try (LocalSmtpServer smtp = new LocalSmtpServer(true)) {
+            claims(new OutboxEmail(2L, "nobody@example.com", "link", 0));
+            dispatcher = dispatcherFor(smtp.mailProperties());
+
+            dispatcher.dispatchDue();
+
+            verify(outbox, timeout(WAIT_MILLIS)).markFailed(eq(2L), eq(1), contains("550"));
+            verify(outbox, never()).retryLater(anyLong(), anyInt(), anyString(), any());
+            assertThat(smtp.messages()).isEmpty();
+        }
+    }
+
+    @Tag("Unit")
+    @Test
+    void dispatchDue_serverUnreachable_retriedAfterBackoff() throws IOException {
+        claims(new OutboxEmail(3L, "buyer@example.com", "link", 2));
+        dispatcher = dispatcherFor(unreachable());
+
+        dispatcher.dispatchDue();
+
+        // email.outbox.backoff.base.seconds doubled for each of the three failed attempts but the first
+        verify(outbox, timeout(WAIT_MILLIS)).retryLater(eq(3L), eq(3), anyString(), eq(Duration.ofSeconds(120)));
+    }
+
+    @Tag("Unit")
+    @Test
+    void dispatchDue_lastAttemptFails_markedFailed() throws IOException {
+        claims(new OutboxEmail(4L, "buyer@example.com", "link", 7));
+        dispatcher = dispatcherFor(unreachable());
+
+        dispatcher.dispatchDue();
+
+        verify(outbox, timeout(WAIT_MILLIS)).markFailed(eq(4L), eq(8), anyString());
+    }
+
+    private void claims(OutboxEmail... emails) {
+        doReturn(List.of(emails)).when(outbox).claimDue(anyInt(), any());
+    }
+
+    private ConfirmationEmailDispatcher dispatcherFor(Properties mailProperties) {
+        return new ConfirmationEmailDispatcher(sessionFactory, entityManager -> outbox, mailProperties);
+    }
+
+    // a port that was free a moment ago refuses the connection
+    private static Properties unreachable() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Properties properties = new Properties();
+        properties.put("mail.smtp.host", "127.0.0.1");
+        properties.put("mail.smtp.port", String.valueOf(port));
+        properties.put("mail.smtp.connectiontimeout", "5000");
+        return properties;
+    }
+}
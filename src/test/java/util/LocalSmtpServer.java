@@ -0,0 +1,121 @@
+package util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Just enough SMTP on a loopback port for javax.mail to deliver to: no auth, no TLS, every message kept in memory
+public class LocalSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final boolean rejectRecipients;
+    private final List<Message> messages = new CopyOnWriteArrayList<>();
+
+    public LocalSmtpServer(boolean rejectRecipients) throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        this.rejectRecipients = rejectRecipients;
+        Thread thread = new Thread(this::accept, "local-smtp");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public Properties mailProperties() {
+        Properties properties = new Properties();
+        properties.put("mail.smtp.host", "127.0.0.1");
+        properties.put("mail.smtp.port", String.valueOf(serverSocket.getLocalPort()));
+        properties.put("mail.smtp.auth", Boolean.FALSE.toString());
+        properties.put("mail.smtp.starttls.enable", Boolean.FALSE.toString());
+        properties.put("mail.smtp.connectiontimeout", "5000");
+        properties.put("mail.smtp.timeout", "5000");
+        return properties;
+    }
+
+    public List<Message> messages() {
+        return messages;
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                converse(socket);
+            } catch (IOException e) {
+                // closed, or the client hung up
+            }
+        }
+    }
+
+    private void converse(Socket socket) throws IOException {
+        var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        var out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        reply(out, "220 localhost ESMTP");
+        String from = null;
+        List<String> recipients = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+            switch (command) {
+                case "EHLO", "HELO" -> reply(out, "250 localhost");
+                case "MAIL" -> {
+                    from = address(line);
+                    reply(out, "250 OK");
+                }
+                case "RCPT" -> {
+                    if (rejectRecipients) {
+                        reply(out, "550 5.1.1 No such user");
+                    } else {
+                        recipients.add(address(line));
+                        reply(out, "250 OK");
+                    }
+                }
+                case "DATA" -> {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    StringBuilder data = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+                    }
+                    messages.add(new Message(from, List.copyOf(recipients), data.toString()));
+                    recipients.clear();
+                    reply(out, "250 OK");
+                }
+                case "RSET" -> {
+                    from = null;
+                    recipients.clear();
+                    reply(out, "250 OK");
+                }
+                case "NOOP" -> reply(out, "250 OK");
+                case "QUIT" -> {
+                    reply(out, "221 Bye");
+                    return;
+                }
+                default -> reply(out, "502 Command not implemented");
+            }
+        }
+    }
+
+    private static void reply(PrintWriter out, String line) {
+        out.print(line + "\r\n");
+        out.flush();
+    }
+
+    private static String address(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>');
+        return start < 0 || end < start ? line.substring(line.indexOf(':') + 1).trim() : line.substring(start + 1, end);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    public record Message(String from, List<String> recipients, String data) {
+    }
+}
@@ -0,0 +1,38 @@
+package util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import utlis.jdbc.PropertiesUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "PropertiesUtil")
+public class PropertiesUtilTest {
+
+    @Tag("Unit")
+    @Test
+    void typedGetters_presentProperty_parsedValue() {
+        assertThat(PropertiesUtil.getIntProperty("orders.max.lines", 1)).isEqualTo(500);
+        assertThat(PropertiesUtil.getLongProperty("audit.journal.max.bytes", 1L)).isEqualTo(67_108_864L);
+        assertThat(PropertiesUtil.getBooleanProperty("email.confirmation.enabled", true)).isFalse();
+        assertThat(PropertiesUtil.getProperty("stock.mode", "column")).isEqualTo("ledger");
+    }
+
+    @Tag("Unit")
+    @Test
+    void typedGetters_missingProperty_default() {
+        assertThat(PropertiesUtil.getIntProperty("no.such.property", 7)).isEqualTo(7);
+        assertThat(PropertiesUtil.getLongProperty("no.such.property", 7L)).isEqualTo(7L);
+        assertThat(PropertiesUtil.getBooleanProperty("no.such.property", true)).isTrue();
+        assertThat(PropertiesUtil.getProperty("no.such.property", "fallback")).isEqualTo("fallback");
+    }
+
+    @Tag("Unit")
+    @Test
+    void getProperty_blankProperty_default() {
+        assertThat(PropertiesUtil.getProperty("node.id", "fallback")).isEqualTo("fallback");
+    }
+}
@@ -0,0 +1,52 @@
+package util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import utlis.TimerWheel;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
+
+@TestInstance(PER_METHOD)
+@Tag(value = "TimerWheel")
+public class TimerWheelTest {
+
+    @Tag("Unit")
+    @Test
+    void schedule_beyondFirstLevel_firesInDeadlineOrder() throws InterruptedException {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        try (TimerWheel wheel = new TimerWheel("test-wheel", 10, 8)) {
+            // 80 ms fit in the first level, the others cascade down from the overflow wheels
+            wheel.schedule(() -> { fired.add(3); done.countDown(); }, 700);
+            wheel.schedule(() -> { fired.add(1); done.countDown(); }, 30);
+            wheel.schedule(() -> { fired.add(2); done.countDown(); }, 250);
+
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(fired).containsExactly(1, 2, 3);
+            assertThat(wheel.size()).isZero();
+        }
+    }
+
+    @Tag("Unit")
+    @Test
+    void cancel_beforeDeadline_neverFires() throws InterruptedException {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch marker = new CountDownLatch(1);
+        try (TimerWheel wheel = new TimerWheel("test-wheel", 10, 8)) {
+            TimerWheel.Timeout cancelled = wheel.schedule(() -> fired.add("cancelled"), 100);
+            wheel.schedule(marker::countDown, 200);
+
+            assertThat(cancelled.cancel()).isTrue();
+            assertThat(marker.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(fired).isEmpty();
+            assertThat(cancelled.cancel()).isFalse();
+        }
+    }
+}